@@ -0,0 +1,63 @@
+package ru.practicum.shareit.benchmarks;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.ItemRequest;
+import ru.practicum.shareit.user.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Детерминированные сущности в памяти для бенчмарков мапперов и сериализации.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+final class Fixtures {
+
+    static final LocalDateTime NOW = LocalDateTime.of(2024, 6, 1, 12, 0);
+
+    static List<Item> items(int count) {
+        List<Item> items = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            User owner = User.builder().id((long) (i % 50 + 1)).name("owner" + i).email("owner" + i + "@mail.ru").build();
+            items.add(Item.builder()
+                    .id((long) i)
+                    .name("Дрель " + i)
+                    .description("Ударная дрель с набором свёрл, модель " + i)
+                    .available(i % 5 != 0)
+                    .owner(owner)
+                    .requestId(i % 3 == 0 ? (long) i : null)
+                    .build());
+        }
+        return items;
+    }
+
+    static List<Booking> bookings(List<Item> items) {
+        List<Booking> bookings = new ArrayList<>(items.size());
+        for (Item item : items) {
+            User booker = User.builder().id(item.getId() + 1000).name("booker").email("b@mail.ru").build();
+            bookings.add(Booking.builder()
+                    .id(item.getId())
+                    .start(NOW.plusHours(item.getId()))
+                    .end(NOW.plusHours(item.getId() + 2))
+                    .item(item)
+                    .booker(booker)
+                    .status(BookingStatus.APPROVED)
+                    .build());
+        }
+        return bookings;
+    }
+
+    static ItemRequest request(long id) {
+        return ItemRequest.builder()
+                .id(id)
+                .description("Нужна дрель на выходные")
+                .requester(User.builder().id(id).name("requester").email("r@mail.ru").build())
+                .created(NOW.minusDays(id % 30))
+                .build();
+    }
+}
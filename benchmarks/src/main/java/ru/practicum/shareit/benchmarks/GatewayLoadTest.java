@@ -0,0 +1,181 @@
+package ru.practicum.shareit.benchmarks;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Нагрузочный тест запущенного шлюза по закрытой модели: concurrency клиентов, каждый отправляет
+ * следующий запрос сразу после ответа на предыдущий. Клиенты по очереди запрашивают
+ * GET /users/{id}, GET /items и GET /bookings?size=10 от имени случайного пользователя из 1..users.
+ * После прогрева печатает пропускную способность, долю ошибок и перцентили задержки.
+ *
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar ru.practicum.shareit.benchmarks.GatewayLoadTest \
+ *   --url=http://localhost:8080 --users=1000 --concurrency=1000 --warmup=PT15S --duration=PT60S
+ * </pre>
+ */
+public final class GatewayLoadTest {
+
+    private GatewayLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        URI url = URI.create(options.getOrDefault("url", "http://localhost:8080"));
+        int users = Integer.parseInt(options.getOrDefault("users", "1000"));
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "200"));
+        Duration warmup = Duration.parse(options.getOrDefault("warmup", "PT15S"));
+        Duration duration = Duration.parse(options.getOrDefault("duration", "PT60S"));
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+
+        run(client, url, users, concurrency, warmup);
+        Result result = run(client, url, users, concurrency, duration);
+
+        System.out.printf("concurrency=%d duration=%ss requests=%d errors=%d (%.2f%%)%n",
+                concurrency, duration.toSeconds(), result.requests(), result.errors(),
+                result.requests() == 0 ? 0.0 : 100.0 * result.errors() / result.requests());
+        System.out.printf("throughput=%.1f req/s%n", (double) result.requests() / duration.toMillis() * 1000);
+        System.out.printf("latency ms: p50=%.1f p90=%.1f p99=%.1f max=%.1f%n",
+                result.percentile(0.50), result.percentile(0.90), result.percentile(0.99), result.percentile(1.0));
+    }
+
+    private static Result run(HttpClient client, URI url, int users, int concurrency, Duration duration)
+            throws Exception {
+        long deadline = System.nanoTime() + duration.toNanos();
+        // на стороне клиента виртуальные потоки: генератор нагрузки не должен сам упираться в число потоков
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Worker>> workers = new ArrayList<>(concurrency);
+            for (int i = 0; i < concurrency; i++) {
+                Worker worker = new Worker(client, url, users, deadline, i);
+                workers.add(executor.submit(() -> {
+                    worker.run();
+                    return worker;
+                }));
+            }
+            List<Result> results = new ArrayList<>(concurrency);
+            for (Future<Worker> worker : workers) {
+                results.add(worker.get().result());
+            }
+            return Result.merge(results);
+        }
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("Ожидается --ключ=значение: " + arg);
+            }
+            options.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+        return options;
+    }
+
+    private static final class Worker {
+        private final HttpClient client;
+        private final URI url;
+        private final int users;
+        private final long deadline;
+        private int step;
+        private long[] latencies = new long[1024];
+        private int count;
+        private long errors;
+
+        Worker(HttpClient client, URI url, int users, long deadline, int offset) {
+            this.client = client;
+            this.url = url;
+            this.users = users;
+            this.deadline = deadline;
+            this.step = offset;
+        }
+
+        void run() {
+            while (System.nanoTime() < deadline) {
+                long userId = ThreadLocalRandom.current().nextLong(1, users + 1);
+                HttpRequest request = HttpRequest.newBuilder(url.resolve(path(userId)))
+                        .header("X-Sharer-User-Id", String.valueOf(userId))
+                        .timeout(Duration.ofSeconds(30))
+                        .GET()
+                        .build();
+                long start = System.nanoTime();
+                try {
+                    HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                    if (response.statusCode() >= 400) {
+                        errors++;
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (Exception e) {
+                    errors++;
+                }
+                record(System.nanoTime() - start);
+            }
+        }
+
+        private String path(long userId) {
+            return switch (step++ % 3) {
+                case 0 -> "/users/" + userId;
+                case 1 -> "/items";
+                default -> "/bookings?size=10";
+            };
+        }
+
+        private void record(long nanos) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = nanos;
+        }
+
+        Result result() {
+            return new Result(Arrays.copyOf(latencies, count), errors);
+        }
+    }
+
+    // задержки в наносекундах; после merge отсортированы по возрастанию
+    private record Result(long[] latencies, long errors) {
+
+        long requests() {
+            return latencies.length;
+        }
+
+        static Result merge(List<Result> results) {
+            long[] merged = new long[results.stream().mapToInt(result -> result.latencies.length).sum()];
+            long errors = 0;
+            int position = 0;
+            for (Result result : results) {
+                System.arraycopy(result.latencies, 0, merged, position, result.latencies.length);
+                position += result.latencies.length;
+                errors += result.errors;
+            }
+            Arrays.sort(merged);
+            return new Result(merged, errors);
+        }
+
+        double percentile(double quantile) {
+            if (latencies.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.min(latencies.length - 1, Math.ceil(quantile * latencies.length) - 1);
+            return latencies[Math.max(index, 0)] / 1_000_000.0;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package ru.practicum.shareit.benchmarks;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Вещь с прежней генерацией id через IDENTITY: точка отсчёта для {@link ItemInsertBenchmark}.
+ * Пишет в ту же таблицу items, что и {@link ru.practicum.shareit.item.model.Item}.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "items")
+public class IdentityItem {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String name;
+
+    @Column(nullable = false)
+    private String description;
+
+    @Column(name = "is_available", nullable = false)
+    private Boolean available;
+
+    @Column(name = "owner_id", nullable = false)
+    private Long ownerId;
+}
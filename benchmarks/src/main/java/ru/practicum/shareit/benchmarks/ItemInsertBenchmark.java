@@ -0,0 +1,93 @@
+package ru.practicum.shareit.benchmarks;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.User;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+/**
+ * Вставка 100 000 вещей через Hibernate: id из IDENTITY (каждая строка отдельным запросом)
+ * против id из последовательности блоками по 50 с пакетными INSERT (hibernate.jdbc.batch_size).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ItemInsertBenchmark {
+
+    private static final int CHUNK = 1_000;
+
+    @Param({"100000"})
+    private int rows;
+
+    private EntityManager entityManager;
+    private TransactionTemplate transactionTemplate;
+    private List<Long> ownerIds;
+
+    @Setup
+    public void setUp(SeededServer server) {
+        entityManager = SharedEntityManagerCreator.createSharedEntityManager(server.bean(EntityManagerFactory.class));
+        transactionTemplate = new TransactionTemplate(server.bean(PlatformTransactionManager.class));
+        ownerIds = server.userIds;
+    }
+
+    @Benchmark
+    public void identity() {
+        insert(i -> {
+            IdentityItem item = new IdentityItem();
+            item.setName("Вещь " + i);
+            item.setDescription("Описание " + i);
+            item.setAvailable(true);
+            item.setOwnerId(owner(i));
+            return item;
+        });
+    }
+
+    @Benchmark
+    public void pooledSequence() {
+        insert(i -> Item.builder()
+                .name("Вещь " + i)
+                .description("Описание " + i)
+                .available(true)
+                .owner(entityManager.getReference(User.class, owner(i)))
+                .build());
+    }
+
+    // транзакция и очистка контекста на каждую тысячу строк, как в пакетной загрузке
+    private void insert(IntFunction<Object> factory) {
+        for (int from = 0; from < rows; from += CHUNK) {
+            int start = from;
+            transactionTemplate.executeWithoutResult(status -> {
+                for (int i = start; i < Math.min(start + CHUNK, rows); i++) {
+                    entityManager.persist(factory.apply(i));
+                }
+                entityManager.flush();
+                entityManager.clear();
+            });
+        }
+    }
+
+    private Long owner(int i) {
+        return ownerIds.get(i % ownerIds.size());
+    }
+}
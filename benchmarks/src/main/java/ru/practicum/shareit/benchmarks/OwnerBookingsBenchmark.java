@@ -0,0 +1,71 @@
+package ru.practicum.shareit.benchmarks;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.Booking;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Первая страница /bookings/owner: фильтр через соединение с items против bookings.owner_id
+ * с индексом (owner_id, start_date DESC). Крупный набор данных: -p users=100000.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OwnerBookingsBenchmark {
+
+    private static final String JOIN_ITEMS = "select booking from Booking booking join fetch booking.item item "
+            + "where item.owner.id = :ownerId order by booking.start desc, booking.id desc";
+    private static final String OWNER_COLUMN = "select booking from Booking booking join fetch booking.item item "
+            + "where booking.ownerId = :ownerId order by booking.start desc, booking.id desc";
+    private static final int PAGE_SIZE = 10;
+
+    private EntityManager entityManager;
+    private TransactionTemplate readOnly;
+    private List<Long> ownerIds;
+
+    @Setup
+    public void setUp(SeededServer server) {
+        entityManager = SharedEntityManagerCreator.createSharedEntityManager(server.bean(EntityManagerFactory.class));
+        readOnly = new TransactionTemplate(server.bean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+        ownerIds = server.ownerIds;
+    }
+
+    @Benchmark
+    public List<Booking> joinItemsOwner() {
+        return firstPage(JOIN_ITEMS);
+    }
+
+    @Benchmark
+    public List<Booking> ownerIdColumn() {
+        return firstPage(OWNER_COLUMN);
+    }
+
+    private List<Booking> firstPage(String query) {
+        Long ownerId = ownerIds.get(ThreadLocalRandom.current().nextInt(ownerIds.size()));
+        return readOnly.execute(status -> entityManager.createQuery(query, Booking.class)
+                .setParameter("ownerId", ownerId)
+                .setMaxResults(PAGE_SIZE)
+                .getResultList());
+    }
+}
@@ -0,0 +1,61 @@
+package ru.practicum.shareit.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.ItemSearchIndex;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.mapper.ItemMapper;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * /items/search: триграммный индекс против JPQL-запроса с LIKE по всей таблице.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchBenchmark {
+
+    @Param({"дрель", "ВЕЛОСИПЕД", "шуруп"})
+    private String text;
+
+    private ItemSearchIndex searchIndex;
+    private ItemRepository itemRepository;
+    private TransactionTemplate readOnly;
+
+    @Setup
+    public void setUp(SeededServer server) {
+        searchIndex = server.bean(ItemSearchIndex.class);
+        itemRepository = server.bean(ItemRepository.class);
+        readOnly = new TransactionTemplate(server.bean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+    }
+
+    @Benchmark
+    public List<ItemDto> index() {
+        return searchIndex.search(text);
+    }
+
+    @Benchmark
+    public List<ItemDto> jpql() {
+        return readOnly.execute(status -> itemRepository.search(text).stream()
+                .map(ItemMapper::toItemDto)
+                .toList());
+    }
+}
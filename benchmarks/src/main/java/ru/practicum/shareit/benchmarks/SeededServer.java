@@ -0,0 +1,66 @@
+package ru.practicum.shareit.benchmarks;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.ShareItApp;
+import ru.practicum.shareit.item.ItemSearchIndex;
+
+import java.util.List;
+
+/**
+ * Контекст сервера на H2 в памяти со схемой из schema.sql, заполненный генератором данных
+ * (профиль generator). Общий для всех потоков одного прогона; объёмы меняются через -p.
+ */
+@State(Scope.Benchmark)
+public class SeededServer {
+
+    @Param({"1000"})
+    public int users;
+
+    @Param({"10"})
+    public int itemsPerOwner;
+
+    @Param({"10"})
+    public int bookingsPerItem;
+
+    public ConfigurableApplicationContext context;
+    public List<Long> userIds;
+    public List<Long> ownerIds;
+
+    @Setup(Level.Trial)
+    public void start() {
+        // аргументы командной строки перекрывают application.properties сервера (PostgreSQL)
+        context = new SpringApplicationBuilder(ShareItApp.class)
+                .profiles("generator")
+                .run("--spring.datasource.url=jdbc:h2:mem:bench;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--shareit.items.search-index.enabled=true",
+                        "--shareit.generator.users=" + users,
+                        "--shareit.generator.items-per-owner=" + itemsPerOwner,
+                        "--shareit.generator.bookings-per-item=" + bookingsPerItem,
+                        "--logging.level.root=WARN");
+        context.getBean(ItemSearchIndex.class).rebuild();
+
+        JdbcTemplate jdbcTemplate = bean(JdbcTemplate.class);
+        userIds = jdbcTemplate.queryForList("SELECT id FROM users ORDER BY id", Long.class);
+        ownerIds = jdbcTemplate.queryForList("SELECT DISTINCT owner_id FROM items ORDER BY owner_id", Long.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    public <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+}
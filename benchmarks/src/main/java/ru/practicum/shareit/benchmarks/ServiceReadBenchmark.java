@@ -0,0 +1,72 @@
+package ru.practicum.shareit.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.shareit.booking.BookingService;
+import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.dto.BookingState;
+import ru.practicum.shareit.item.ItemService;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.request.ItemRequestService;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пути чтения сервисов через транзакции и Hibernate против H2 в памяти.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ServiceReadBenchmark {
+
+    private ItemService itemService;
+    private BookingService bookingService;
+    private ItemRequestService itemRequestService;
+    private List<Long> userIds;
+
+    @Setup
+    public void setUp(SeededServer server) {
+        itemService = server.bean(ItemService.class);
+        bookingService = server.bean(BookingService.class);
+        itemRequestService = server.bean(ItemRequestService.class);
+        userIds = server.userIds;
+    }
+
+    @Benchmark
+    public List<ItemDto> itemsByOwner() {
+        return itemService.getByOwner(randomUser());
+    }
+
+    @Benchmark
+    public List<BookingResponseDto> bookingsForBooker() {
+        return bookingService.getForBooker(randomUser(), BookingState.ALL, 0, 10, null);
+    }
+
+    @Benchmark
+    public List<BookingResponseDto> bookingsForOwner() {
+        return bookingService.getForOwner(randomUser(), BookingState.ALL, 0, 10, null);
+    }
+
+    @Benchmark
+    public List<ItemRequestDto> ownRequests() {
+        return itemRequestService.getOwn(randomUser());
+    }
+
+    private Long randomUser() {
+        return userIds.get(ThreadLocalRandom.current().nextInt(userIds.size()));
+    }
+}
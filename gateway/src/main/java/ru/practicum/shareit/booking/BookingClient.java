@@ -1,32 +1,44 @@
 package ru.practicum.shareit.booking;
 
+import jakarta.servlet.http.HttpServletResponse;
+import java.util.HashMap;
 import java.util.Map;
 
-import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.util.DefaultUriBuilderFactory;
 
 import ru.practicum.shareit.booking.dto.BookItemRequestDto;
+import ru.practicum.shareit.booking.dto.BookingBulkApprovalDto;
 import ru.practicum.shareit.booking.dto.BookingState;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.BulkheadLimits;
+import ru.practicum.shareit.client.DownstreamGuard;
+import ru.practicum.shareit.client.ResilienceProperties;
 
 @Service
 public class BookingClient extends BaseClient {
     private static final String API_PREFIX = "/bookings";
 
     @Autowired
-    public BookingClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    public BookingClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder,
+                         ClientHttpRequestFactory requestFactory,
+                         ResilienceProperties resilience,
+                         BulkheadLimits limits,
+                         ObjectProvider<DownstreamGuard> streamingGuard) {
         super(
                 builder
                         .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(() ->
-                                new HttpComponentsClientHttpRequestFactory(HttpClients.createDefault()))
-                        .build()
+                        .requestFactory(() -> requestFactory)
+                        .build(),
+                resilience,
+                limits,
+                streamingGuard.getIfAvailable()
         );
     }
 
@@ -39,25 +51,46 @@ public class BookingClient extends BaseClient {
         return patch("/" + bookingId + "?approved={approved}", ownerId, parameters, null);
     }
 
+    public ResponseEntity<Object> approveBookings(long ownerId, BookingBulkApprovalDto requestDto) {
+        return patch("/bulk", ownerId, requestDto);
+    }
+
     public ResponseEntity<Object> getBooking(long userId, Long bookingId) {
         return get("/" + bookingId, userId);
     }
 
-    public ResponseEntity<Object> getBookings(long userId, BookingState state, Integer from, Integer size) {
-        Map<String, Object> parameters = Map.of(
-                "state", state.name(),
-                "from", from,
-                "size", size
-        );
-        return get("?state={state}&from={from}&size={size}", userId, parameters);
+    public ResponseEntity<Object> getBookings(long userId, BookingState state, Integer from, Integer size,
+                                              String cursor) {
+        return get("?" + listQuery(cursor), userId, listParameters(state, from, size, cursor));
     }
 
-    public ResponseEntity<Object> getOwnerBookings(long ownerId, BookingState state, Integer from, Integer size) {
-        Map<String, Object> parameters = Map.of(
-                "state", state.name(),
-                "from", from,
-                "size", size
-        );
-        return get("/owner?state={state}&from={from}&size={size}", ownerId, parameters);
+    public ResponseEntity<Object> getOwnerBookings(long ownerId, BookingState state, Integer from, Integer size,
+                                                   String cursor) {
+        return get("/owner?" + listQuery(cursor), ownerId, listParameters(state, from, size, cursor));
+    }
+
+    public void exportBookings(long userId, HttpServletResponse response) {
+        stream("/export", userId, response);
+    }
+
+    public void exportOwnerBookings(long ownerId, HttpServletResponse response) {
+        stream("/owner/export", ownerId, response);
+    }
+
+    private String listQuery(String cursor) {
+        return cursor == null
+                ? "state={state}&from={from}&size={size}"
+                : "state={state}&from={from}&size={size}&cursor={cursor}";
+    }
+
+    private Map<String, Object> listParameters(BookingState state, Integer from, Integer size, String cursor) {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("state", state.name());
+        parameters.put("from", from);
+        parameters.put("size", size);
+        if (cursor != null) {
+            parameters.put("cursor", cursor);
+        }
+        return parameters;
     }
-}
\ No newline at end of file
+}
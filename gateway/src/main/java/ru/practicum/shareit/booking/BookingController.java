@@ -2,6 +2,7 @@ package ru.practicum.shareit.booking;
 
 import java.time.LocalDateTime;
 
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Positive;
 import jakarta.validation.constraints.PositiveOrZero;
@@ -20,6 +21,7 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import ru.practicum.shareit.booking.dto.BookItemRequestDto;
+import ru.practicum.shareit.booking.dto.BookingBulkApprovalDto;
 import ru.practicum.shareit.booking.dto.BookingState;
 import ru.practicum.shareit.exceptions.ValidationException;
 
@@ -47,6 +49,12 @@ public class BookingController {
         return bookingClient.approveBooking(ownerId, bookingId, approved);
     }
 
+    @PatchMapping("/bulk")
+    public ResponseEntity<Object> approveAll(@RequestHeader(USER_HEADER) @Positive Long ownerId,
+                                             @RequestBody @Valid BookingBulkApprovalDto requestDto) {
+        return bookingClient.approveBookings(ownerId, requestDto);
+    }
+
     @GetMapping("/{bookingId}")
     public ResponseEntity<Object> getById(@RequestHeader(USER_HEADER) @Positive Long userId,
                                           @PathVariable @Positive Long bookingId) {
@@ -57,16 +65,29 @@ public class BookingController {
     public ResponseEntity<Object> getForBooker(@RequestHeader(USER_HEADER) @Positive Long userId,
                                                @RequestParam(defaultValue = "ALL") String state,
                                                @RequestParam(defaultValue = "0") @PositiveOrZero Integer from,
-                                               @RequestParam(defaultValue = "10") @Positive Integer size) {
-        return bookingClient.getBookings(userId, parseState(state), from, size);
+                                               @RequestParam(defaultValue = "10") @Positive Integer size,
+                                               @RequestParam(required = false) String cursor) {
+        return bookingClient.getBookings(userId, parseState(state), from, size, cursor);
     }
 
     @GetMapping("/owner")
     public ResponseEntity<Object> getForOwner(@RequestHeader(USER_HEADER) @Positive Long ownerId,
                                               @RequestParam(defaultValue = "ALL") String state,
                                               @RequestParam(defaultValue = "0") @PositiveOrZero Integer from,
-                                              @RequestParam(defaultValue = "10") @Positive Integer size) {
-        return bookingClient.getOwnerBookings(ownerId, parseState(state), from, size);
+                                              @RequestParam(defaultValue = "10") @Positive Integer size,
+                                              @RequestParam(required = false) String cursor) {
+        return bookingClient.getOwnerBookings(ownerId, parseState(state), from, size, cursor);
+    }
+
+    // NDJSON со всей историей бронирований копируется с сервера потоком
+    @GetMapping("/export")
+    public void exportForBooker(@RequestHeader(USER_HEADER) @Positive Long userId, HttpServletResponse response) {
+        bookingClient.exportBookings(userId, response);
+    }
+
+    @GetMapping("/owner/export")
+    public void exportForOwner(@RequestHeader(USER_HEADER) @Positive Long ownerId, HttpServletResponse response) {
+        bookingClient.exportOwnerBookings(ownerId, response);
     }
 
     private void validateBookingDates(LocalDateTime start, LocalDateTime end) {
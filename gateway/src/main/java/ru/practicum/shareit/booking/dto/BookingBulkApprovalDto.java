@@ -0,0 +1,25 @@
+package ru.practicum.shareit.booking.dto;
+
+import java.util.List;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingBulkApprovalDto {
+    // одна пачка — одна транзакция на сервере с блокировкой строк, поэтому размер ограничен
+    @NotEmpty
+    @Size(max = 500)
+    private List<@NotNull @Positive Long> bookingIds;
+
+    @NotNull
+    private Boolean approved;
+}
@@ -0,0 +1,47 @@
+package ru.practicum.shareit.client;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Попытки одного запроса шлюза: {@link ServerBalancer} отправляет следующую попытку на экземпляр,
+ * куда эта группа ещё не ходила, — кроме запросов пользователя, недавно писавшего через шлюз.
+ */
+final class AttemptGroup {
+
+    private static final ThreadLocal<AttemptGroup> CURRENT = new ThreadLocal<>();
+
+    private final Set<Object> used = ConcurrentHashMap.newKeySet();
+    private volatile boolean pinned;
+
+    static AttemptGroup current() {
+        return CURRENT.get();
+    }
+
+    <T> T run(Supplier<T> attempt) {
+        CURRENT.set(this);
+        try {
+            return attempt.get();
+        } finally {
+            CURRENT.remove();
+        }
+    }
+
+    boolean isUsed(Object instance) {
+        return used.contains(instance);
+    }
+
+    void use(Object instance) {
+        used.add(instance);
+    }
+
+    // пользователь недавно писал: другие экземпляры могут ещё не видеть его записи
+    void pin() {
+        pinned = true;
+    }
+
+    boolean isPinned() {
+        return pinned;
+    }
+}
@@ -0,0 +1,35 @@
+package ru.practicum.shareit.client;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "shareit-server.balancing")
+public class BalancingProperties {
+    // экземпляры сервера (схема, хост и порт); пусто — все запросы идут на shareit-server.url
+    private List<URI> instances = new ArrayList<>();
+
+    // запросы одного пользователя (X-Sharer-User-Id, для /users/{id} — id из пути) идут на один экземпляр:
+    // окно чтения своих записей и кэши пользователей на сервере у каждого экземпляра свои
+    private boolean stickyUsers = true;
+    // владелец пользователя получает запрос, пока у него незавершённых не больше этой доли от среднего
+    // по экземплярам; иначе — выбор «из двух случайных». Больше 1: чем ближе к 1, тем ровнее нагрузка
+    private double stickyLoadFactor = 1.25;
+    // после записи пользователя через шлюз его запросы столько времени идут только на его экземпляр, без
+    // ограничения нагрузкой: не меньше shareit.datasource.replica.sticky-window сервера. 0 — не отслеживать
+    private Duration stickyWindow = Duration.ofSeconds(5);
+
+    private String healthPath = "/actuator/health";
+    private Duration healthInterval = Duration.ofSeconds(5);
+    private Duration healthTimeout = Duration.ofSeconds(2);
+    // подряд неудачных проверок до исключения и удачных до возврата
+    private int unhealthyThreshold = 2;
+    private int healthyThreshold = 2;
+}
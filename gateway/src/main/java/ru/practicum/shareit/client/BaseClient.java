@@ -1,24 +1,84 @@
 package ru.practicum.shareit.client;
 
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.http.StreamingHttpOutputMessage;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.client.NoOpResponseErrorHandler;
 import org.springframework.web.client.RestTemplate;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
 
-public class BaseClient {
+public class BaseClient implements MeterBinder {
 
     private static final String USER_HEADER = "X-Sharer-User-Id";
 
+    // заголовки соединения и длины выставляет сам шлюз при отправке ответа
+    private static final Set<String> HOP_BY_HOP_HEADERS = Set.of(
+            "connection", "keep-alive", "transfer-encoding", "content-length", "date");
+
     private final RestTemplate restTemplate;
+    private final DownstreamGuard guard;
+    private final DownstreamGuard streamingGuard;
+    private final Hedger hedger;
+
+    // одинаковые GET, пришедшие, пока первый из них ждёт сервер, получают его ответ вместо своего запроса
+    private final ConcurrentMap<InFlightKey, CompletableFuture<ResponseEntity<byte[]>>> inFlight =
+            new ConcurrentHashMap<>();
+    private final LongAdder upstreamGets = new LongAdder();
+    private final LongAdder coalescedGets = new LongAdder();
+
+    // число записей, прошедших через шлюз: GET после записи не присоединяется к GET, начатому до неё,
+    // и не получает состояние до записи. Общее для всех клиентов — бронирование меняет и ответы /items
+    private static final AtomicLong COMPLETED_WRITES = new AtomicLong();
+
+    private record InFlightKey(String path, Long userId, Map<String, Object> parameters, long writes) {
+    }
 
     protected BaseClient(RestTemplate restTemplate) {
+        this(restTemplate, null, null);
+    }
+
+    protected BaseClient(RestTemplate restTemplate, ResilienceProperties resilience, BulkheadLimits limits) {
+        this(restTemplate, resilience, limits, null);
+    }
+
+    /**
+     * @param limits         места переборок; Hedger создаётся, только если они рассчитаны с его вторым запросом
+     * @param streamingGuard общая переборка потоковых запросов или null, если клиент их не делает
+     */
+    protected BaseClient(RestTemplate restTemplate, ResilienceProperties resilience, BulkheadLimits limits,
+                         DownstreamGuard streamingGuard) {
         this.restTemplate = restTemplate;
+        this.guard = resilience != null && resilience.isEnabled()
+                ? new DownstreamGuard(getClass().getSimpleName(), resilience, limits.perClient())
+                : null;
+        this.streamingGuard = streamingGuard;
+        this.hedger = resilience != null && limits != null && limits.hedging()
+                ? new Hedger(resilience.getHedging())
+                : null;
+        // ошибки сервера (4xx/5xx) передаются клиенту как есть, а не исключением
+        this.restTemplate.setErrorHandler(new NoOpResponseErrorHandler());
     }
 
     protected ResponseEntity<Object> get(String path) {
@@ -69,28 +129,165 @@ public class BaseClient {
         return makeRequest(HttpMethod.DELETE, path, userId, parameters, null);
     }
 
+    /**
+     * Копирует ответ сервера в ответ шлюза по мере чтения, не накапливая тело в памяти.
+     */
+    protected void stream(String path, Long userId, HttpServletResponse response) {
+        // тело уже скопировано в response; в ответе переборки остаётся только статус
+        Supplier<ResponseEntity<byte[]>> call = () -> restTemplate.execute(path, HttpMethod.GET,
+                request -> {
+                    request.getHeaders().setAccept(List.of(MediaType.ALL));
+                    request.getHeaders().add(USER_HEADER, String.valueOf(userId));
+                },
+                upstream -> {
+                    response.setStatus(upstream.getStatusCode().value());
+                    upstream.getHeaders().forEach((name, values) -> {
+                        if (!HOP_BY_HOP_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                            values.forEach(value -> response.addHeader(name, value));
+                        }
+                    });
+                    StreamUtils.copy(upstream.getBody(), response.getOutputStream());
+                    return ResponseEntity.status(upstream.getStatusCode()).build();
+                });
+        ResponseEntity<byte[]> result = streamingGuard == null ? call.get() : streamingGuard.call(call);
+        // тело есть только у отказа переборки: до сервера запрос не дошёл
+        if (result.hasBody()) {
+            response.setStatus(result.getStatusCode().value());
+            result.getHeaders().forEach((name, values) -> values.forEach(value -> response.addHeader(name, value)));
+            try {
+                response.getOutputStream().write(result.getBody());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Передаёт тело запроса на сервер по мере чтения: шлюз не держит загружаемый файл в памяти целиком.
+     */
+    protected ResponseEntity<Object> postStream(String path, Long userId, MediaType contentType, InputStream body) {
+        try {
+            Supplier<ResponseEntity<byte[]>> call = () -> sendStream(path, userId, contentType, body);
+            return passThrough(streamingGuard == null ? call.get() : streamingGuard.call(call));
+        } finally {
+            COMPLETED_WRITES.incrementAndGet();
+        }
+    }
+
+    private ResponseEntity<byte[]> sendStream(String path, Long userId, MediaType contentType, InputStream body) {
+        return restTemplate.execute(path, HttpMethod.POST,
+                request -> {
+                    request.getHeaders().setContentType(contentType);
+                    request.getHeaders().setAccept(List.of(MediaType.APPLICATION_JSON));
+                    request.getHeaders().add(USER_HEADER, String.valueOf(userId));
+                    if (request instanceof StreamingHttpOutputMessage streaming) {
+                        streaming.setBody(outputStream -> StreamUtils.copy(body, outputStream));
+                    } else {
+                        StreamUtils.copy(body, request.getBody());
+                    }
+                },
+                upstream -> new ResponseEntity<>(StreamUtils.copyToByteArray(upstream.getBody()),
+                        upstream.getHeaders(), upstream.getStatusCode()));
+    }
+
     private ResponseEntity<Object> makeRequest(HttpMethod method, String path, Long userId,
                                                Map<String, Object> parameters, Object body) {
-        HttpEntity<Object> requestEntity = new HttpEntity<>(body, defaultHeaders(userId));
+        if (method == HttpMethod.GET) {
+            return passThrough(coalesce(path, userId, parameters));
+        }
         try {
-            if (parameters != null && !parameters.isEmpty()) {
-                return restTemplate.exchange(path, method, requestEntity, Object.class, parameters);
-            } else {
-                return restTemplate.exchange(path, method, requestEntity, Object.class);
-            }
-        } catch (HttpStatusCodeException e) {
-            HttpHeaders headers = new HttpHeaders();
-            if (e.getResponseHeaders() != null) {
-                headers.putAll(e.getResponseHeaders());
-                headers.remove(HttpHeaders.TRANSFER_ENCODING);
-                headers.remove(HttpHeaders.CONTENT_LENGTH);
+            return passThrough(guarded(method, path, userId, parameters, body));
+        } finally {
+            COMPLETED_WRITES.incrementAndGet();
+        }
+    }
+
+    // потоковые выгрузка и загрузка длятся долго и идут через свою переборку, чтобы не занимать места клиента;
+    // второй запрос Hedger идёт в пределах места первого, его соединение учтено в BulkheadLimits
+    private ResponseEntity<byte[]> guarded(HttpMethod method, String path, Long userId,
+                                           Map<String, Object> parameters, Object body) {
+        Supplier<ResponseEntity<byte[]>> call = () -> exchange(method, path, userId, parameters, body);
+        if (hedger != null && method == HttpMethod.GET) {
+            Supplier<ResponseEntity<byte[]>> single = call;
+            call = () -> hedger.call(single);
+        }
+        return guard == null ? call.get() : guard.call(call);
+    }
+
+    private ResponseEntity<byte[]> coalesce(String path, Long userId, Map<String, Object> parameters) {
+        InFlightKey key = new InFlightKey(path, userId, parameters == null ? Map.of() : parameters,
+                COMPLETED_WRITES.get());
+        CompletableFuture<ResponseEntity<byte[]>> own = new CompletableFuture<>();
+        CompletableFuture<ResponseEntity<byte[]>> running = inFlight.putIfAbsent(key, own);
+        if (running != null) {
+            coalescedGets.increment();
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
             }
-            if (!headers.containsKey(HttpHeaders.CONTENT_TYPE)) {
-                headers.setContentType(MediaType.APPLICATION_JSON);
+        }
+        upstreamGets.increment();
+        try {
+            ResponseEntity<byte[]> response = guarded(HttpMethod.GET, path, userId, parameters, null);
+            own.complete(response);
+            return response;
+        } catch (RuntimeException | Error e) {
+            own.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, own);
+        }
+    }
+
+    private ResponseEntity<byte[]> exchange(HttpMethod method, String path, Long userId,
+                                            Map<String, Object> parameters, Object body) {
+        HttpEntity<Object> requestEntity = new HttpEntity<>(body, defaultHeaders(userId));
+        ResponseEntity<byte[]> response;
+        if (parameters != null && !parameters.isEmpty()) {
+            response = restTemplate.exchange(path, method, requestEntity, byte[].class, parameters);
+        } else {
+            response = restTemplate.exchange(path, method, requestEntity, byte[].class);
+        }
+        return response;
+    }
+
+    // тело ответа сервера отдаётся клиенту теми же байтами, без разбора JSON в шлюзе
+    private ResponseEntity<Object> passThrough(ResponseEntity<byte[]> response) {
+        HttpHeaders headers = new HttpHeaders();
+        response.getHeaders().forEach((name, values) -> {
+            if (!HOP_BY_HOP_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                headers.put(name, values);
             }
-            return ResponseEntity.status(e.getStatusCode())
-                    .headers(headers)
-                    .body(e.getResponseBodyAsString());
+        });
+        if (response.hasBody() && headers.getContentType() == null) {
+            headers.setContentType(MediaType.APPLICATION_JSON);
+        }
+        return ResponseEntity.status(response.getStatusCode())
+                .headers(headers)
+                .body(response.getBody());
+    }
+
+    // доля объединённых запросов: coalesced / (upstream + coalesced)
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        String client = getClass().getSimpleName();
+        FunctionCounter.builder("gateway.get.requests", upstreamGets, LongAdder::sum)
+                .description("GET-запросы шлюза, ушедшие на сервер")
+                .tag("client", client)
+                .tag("result", "upstream")
+                .register(registry);
+        FunctionCounter.builder("gateway.get.requests", coalescedGets, LongAdder::sum)
+                .description("GET-запросы шлюза, получившие ответ уже выполняющегося одинакового запроса")
+                .tag("client", client)
+                .tag("result", "coalesced")
+                .register(registry);
+        if (guard != null) {
+            guard.bindTo(registry, client);
+        }
+        // streamingGuard общий для клиентов, его метрики регистрирует HttpClientConfig
+        if (hedger != null) {
+            hedger.bindTo(registry, client);
         }
     }
 
@@ -0,0 +1,48 @@
+package ru.practicum.shareit.client;
+
+/**
+ * Деление пула соединений к серверу между переборками: место каждого из {@link HttpClientConfig#CLIENT_COUNT}
+ * клиентов и общее место потоковых выгрузок и загрузок. Считается один раз при запуске, свойства не меняются.
+ *
+ * @param perClient одновременных запросов одного клиента
+ * @param streaming одновременных потоковых запросов всех клиентов
+ * @param hedging   второй запрос Hedger занимает ещё одно соединение на каждое место клиента
+ */
+public record BulkheadLimits(int perClient, int streaming, boolean hedging) {
+
+    public BulkheadLimits {
+        if (perClient <= 0 || streaming <= 0) {
+            throw new IllegalStateException(String.format(
+                    "Переборки должны быть больше 0: на клиента %d, потоковых %d", perClient, streaming));
+        }
+    }
+
+    /**
+     * @param serverInstances экземпляров сервера; Hedger работает только при двух и более
+     */
+    public static BulkheadLimits fit(HttpClientProperties http, ResilienceProperties resilience,
+                                     int serverInstances) {
+        boolean hedging = resilience.getHedging().isEnabled() && serverInstances >= 2;
+        int streaming = resilience.getStreaming().getMaxConcurrent();
+        int connectionsPerSlot = hedging ? 2 : 1;
+        int shared = http.getMaxTotal() - streaming;
+        if (resilience.getMaxConcurrent() <= 0) {
+            int perClient = shared / (HttpClientConfig.CLIENT_COUNT * connectionsPerSlot);
+            if (perClient <= 0 && resilience.isEnabled()) {
+                throw new IllegalStateException(String.format(
+                        "shareit-server.http.max-total=%d не хватает на %d потоковых и %d клиентов по %d соединения",
+                        http.getMaxTotal(), streaming, HttpClientConfig.CLIENT_COUNT, connectionsPerSlot));
+            }
+            return new BulkheadLimits(Math.max(1, perClient), streaming, hedging);
+        }
+        long required = (long) resilience.getMaxConcurrent() * HttpClientConfig.CLIENT_COUNT * connectionsPerSlot;
+        if (resilience.isEnabled() && required > shared) {
+            throw new IllegalStateException(String.format(
+                    "shareit-server.resilience.max-concurrent=%d на %d клиентов (по %d соединения на место) "
+                            + "и %d потоковых больше пула shareit-server.http.max-total=%d",
+                    resilience.getMaxConcurrent(), HttpClientConfig.CLIENT_COUNT, connectionsPerSlot, streaming,
+                    http.getMaxTotal()));
+        }
+        return new BulkheadLimits(resilience.getMaxConcurrent(), streaming, hedging);
+    }
+}
@@ -0,0 +1,174 @@
+package ru.practicum.shareit.client;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Автомат CLOSED → OPEN → HALF_OPEN → CLOSED по счётному окну последних вызовов.
+ * Разрешение на вызов помечено поколением: результат вызова, начатого до смены состояния, не учитывается.
+ */
+@Slf4j
+public class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    public static final long REJECTED = -1;
+
+    private final String name;
+    private final int minimumCalls;
+    private final int failureRateThreshold;
+    private final long openNanos;
+    private final int halfOpenCalls;
+    private final LongSupplier clock;
+    // переход пишется в журнал уже после unlock: медленный appender не держит остальные запросы клиента
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // true — ошибка; кольцо последних вызовов в состоянии CLOSED
+    private final boolean[] window;
+    private int position;
+    private int recorded;
+    private int failures;
+
+    private State state = State.CLOSED;
+    private long generation;
+    private long openedAt;
+    private int trialsStarted;
+    private int trialsSucceeded;
+    private final LongAdder[] transitions = {new LongAdder(), new LongAdder(), new LongAdder()};
+
+    public CircuitBreaker(String name, ResilienceProperties properties, LongSupplier clock) {
+        this.name = name;
+        this.window = new boolean[properties.getWindowSize()];
+        this.minimumCalls = properties.getMinimumCalls();
+        this.failureRateThreshold = properties.getFailureRateThreshold();
+        this.openNanos = properties.getOpenDuration().toNanos();
+        this.halfOpenCalls = properties.getHalfOpenCalls();
+        this.clock = clock;
+    }
+
+    /**
+     * @return поколение для {@link #onResult} или {@link #REJECTED}, если цепь разомкнута
+     */
+    public long tryAcquire() {
+        State from = null;
+        lock.lock();
+        try {
+            if (state == State.OPEN) {
+                if (clock.getAsLong() - openedAt < openNanos) {
+                    return REJECTED;
+                }
+                from = transition(State.HALF_OPEN);
+            }
+            if (state == State.HALF_OPEN) {
+                if (trialsStarted >= halfOpenCalls) {
+                    return REJECTED;
+                }
+                trialsStarted++;
+            }
+            return generation;
+        } finally {
+            lock.unlock();
+            logTransition(from, State.HALF_OPEN);
+        }
+    }
+
+    // разрешение получено, но вызов не состоялся
+    public void release(long permit) {
+        lock.lock();
+        try {
+            if (permit == generation && state == State.HALF_OPEN) {
+                trialsStarted--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void onResult(long permit, boolean failed) {
+        State from = null;
+        State to = null;
+        lock.lock();
+        try {
+            if (permit != generation) {
+                return;
+            }
+            if (state == State.HALF_OPEN) {
+                if (failed) {
+                    to = State.OPEN;
+                } else if (++trialsSucceeded >= halfOpenCalls) {
+                    to = State.CLOSED;
+                }
+            } else if (state == State.CLOSED) {
+                if (recorded == window.length) {
+                    failures -= window[position] ? 1 : 0;
+                } else {
+                    recorded++;
+                }
+                window[position] = failed;
+                failures += failed ? 1 : 0;
+                position = (position + 1) % window.length;
+                if (recorded >= minimumCalls && failures * 100L >= (long) failureRateThreshold * recorded) {
+                    to = State.OPEN;
+                }
+            }
+            if (to != null) {
+                from = transition(to);
+            }
+        } finally {
+            lock.unlock();
+            logTransition(from, to);
+        }
+    }
+
+    public State state() {
+        lock.lock();
+        try {
+            return state;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long retryAfterNanos() {
+        lock.lock();
+        try {
+            return state == State.OPEN ? Math.max(0, openedAt + openNanos - clock.getAsLong()) : 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long transitions(State to) {
+        return transitions[to.ordinal()].sum();
+    }
+
+    // вызывается под lock; возвращает прежнее состояние для logTransition
+    private State transition(State to) {
+        State from = state;
+        state = to;
+        generation++;
+        transitions[to.ordinal()].increment();
+        switch (to) {
+            case OPEN -> openedAt = clock.getAsLong();
+            case HALF_OPEN -> {
+                trialsStarted = 0;
+                trialsSucceeded = 0;
+            }
+            case CLOSED -> {
+                position = 0;
+                recorded = 0;
+                failures = 0;
+            }
+        }
+        return from;
+    }
+
+    private void logTransition(State from, State to) {
+        if (from != null) {
+            log.warn("Цепь {}: {} -> {}", name, from, to);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Переборка и предохранитель одного клиента: медленный /bookings занимает только свои maxConcurrent мест,
+ * а при разомкнутой цепи запросы сразу получают 503 вместо ожидания сервера.
+ */
+public class DownstreamGuard {
+
+    private final CircuitBreaker breaker;
+    private final Semaphore bulkhead;
+    private final int maxConcurrent;
+    private final long acquireTimeoutNanos;
+    private final long slowCallNanos;
+    private final LongSupplier clock;
+    private final LongAdder rejectedOpen = new LongAdder();
+    private final LongAdder rejectedFull = new LongAdder();
+
+    /**
+     * @param maxConcurrent место переборки из {@link BulkheadLimits}
+     */
+    public DownstreamGuard(String name, ResilienceProperties properties, int maxConcurrent) {
+        this(name, properties, maxConcurrent, properties.getSlowCallThreshold(), System::nanoTime);
+    }
+
+    /**
+     * Переборка потоковых выгрузок и загрузок: они длятся долго по природе, поэтому ошибкой считаются
+     * только 5xx и исключения, а не время ответа.
+     */
+    public static DownstreamGuard streaming(ResilienceProperties properties, int maxConcurrent) {
+        return new DownstreamGuard("streaming", properties, maxConcurrent, null, System::nanoTime);
+    }
+
+    // slowCallThreshold == null — медленных вызовов не бывает
+    DownstreamGuard(String name, ResilienceProperties properties, int maxConcurrent, Duration slowCallThreshold,
+                    LongSupplier clock) {
+        if (maxConcurrent <= 0) {
+            throw new IllegalArgumentException("Переборка " + name + " должна быть больше 0: " + maxConcurrent);
+        }
+        this.breaker = new CircuitBreaker(name, properties, clock);
+        this.maxConcurrent = maxConcurrent;
+        this.bulkhead = new Semaphore(maxConcurrent);
+        this.acquireTimeoutNanos = properties.getAcquireTimeout().toNanos();
+        this.slowCallNanos = slowCallThreshold == null ? Long.MAX_VALUE : slowCallThreshold.toNanos();
+        this.clock = clock;
+    }
+
+    public ResponseEntity<byte[]> call(Supplier<ResponseEntity<byte[]>> upstream) {
+        long permit = breaker.tryAcquire();
+        if (permit == CircuitBreaker.REJECTED) {
+            rejectedOpen.increment();
+            long retryAfter = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(breaker.retryAfterNanos() + 999_999_999));
+            return unavailable("Сервер временно недоступен, повторите позже", retryAfter);
+        }
+        if (!acquireBulkhead()) {
+            breaker.release(permit);
+            rejectedFull.increment();
+            return unavailable("Слишком много одновременных запросов к серверу", 1);
+        }
+        long start = clock.getAsLong();
+        try {
+            ResponseEntity<byte[]> response = upstream.get();
+            boolean slow = clock.getAsLong() - start >= slowCallNanos;
+            breaker.onResult(permit, response.getStatusCode().is5xxServerError() || slow);
+            return response;
+        } catch (RuntimeException | Error e) {
+            breaker.onResult(permit, true);
+            throw e;
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    public void bindTo(MeterRegistry registry, String client) {
+        Gauge.builder("gateway.circuit.state", breaker, b -> b.state().ordinal())
+                .description("Состояние цепи: 0 — замкнута, 1 — разомкнута, 2 — пробные вызовы")
+                .tag("client", client)
+                .register(registry);
+        for (CircuitBreaker.State state : CircuitBreaker.State.values()) {
+            FunctionCounter.builder("gateway.circuit.transitions", breaker, b -> b.transitions(state))
+                    .description("Переходы цепи в состояние")
+                    .tag("client", client)
+                    .tag("state", state.name().toLowerCase(Locale.ROOT))
+                    .register(registry);
+        }
+        FunctionCounter.builder("gateway.downstream.rejected", rejectedOpen, LongAdder::sum)
+                .description("Запросы, отклонённые шлюзом с 503 без обращения к серверу")
+                .tag("client", client)
+                .tag("reason", "circuit_open")
+                .register(registry);
+        FunctionCounter.builder("gateway.downstream.rejected", rejectedFull, LongAdder::sum)
+                .description("Запросы, отклонённые шлюзом с 503 без обращения к серверу")
+                .tag("client", client)
+                .tag("reason", "bulkhead_full")
+                .register(registry);
+        Gauge.builder("gateway.bulkhead.active", bulkhead, b -> maxConcurrent - b.availablePermits())
+                .description("Запросы клиента, выполняющиеся на сервере")
+                .tag("client", client)
+                .register(registry);
+    }
+
+    private boolean acquireBulkhead() {
+        if (acquireTimeoutNanos <= 0) {
+            return bulkhead.tryAcquire();
+        }
+        try {
+            return bulkhead.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static ResponseEntity<byte[]> unavailable(String message, long retryAfterSeconds) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .body(("{\"error\":\"" + message + "\"}").getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,153 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Если GET не получил ответа за delay, такой же запрос уходит на другой экземпляр сервера;
+ * побеждает первый ответ не из 5xx, проигравшая попытка прерывается. Запросы пользователя, недавно писавшего через шлюз,
+ * не дублируются: другой экземпляр мог бы прочитать реплику, ещё не догнавшую его запись. Вторые запросы оплачиваются из бюджета:
+ * каждый GET добавляет budgetPercent сотых, второй запрос стоит единицу, запас — не больше maxBurst.
+ */
+public class Hedger {
+
+    private static final long HEDGE_COST = 100;
+
+    private final long delayNanos;
+    private final long earnPerRequest;
+    private final long maxBudget;
+    private final AtomicLong budget;
+    // попытки ждут ответа в виртуальных потоках: прерывание закрывает сокет проигравшей попытки
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("hedge-", 0).factory());
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder won = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+
+    public Hedger(ResilienceProperties.Hedging properties) {
+        this.delayNanos = properties.getDelay().toNanos();
+        this.earnPerRequest = properties.getBudgetPercent();
+        this.maxBudget = HEDGE_COST * properties.getMaxBurst();
+        this.budget = new AtomicLong(maxBudget);
+    }
+
+    public ResponseEntity<byte[]> call(Supplier<ResponseEntity<byte[]>> request) {
+        earn();
+        AttemptGroup group = new AttemptGroup();
+        ExecutorCompletionService<ResponseEntity<byte[]>> completion = new ExecutorCompletionService<>(executor);
+        List<Future<ResponseEntity<byte[]>>> attempts = new ArrayList<>(2);
+        attempts.add(completion.submit(() -> group.run(request)));
+        try {
+            Future<ResponseEntity<byte[]>> done = completion.poll(delayNanos, TimeUnit.NANOSECONDS);
+            if (done == null) {
+                // у недавно писавшего пользователя второй запрос ушёл бы на тот же экземпляр (см. ServerBalancer)
+                if (!group.isPinned()) {
+                    if (trySpend()) {
+                        sent.increment();
+                        attempts.add(completion.submit(() -> group.run(request)));
+                    } else {
+                        skipped.increment();
+                    }
+                }
+                done = completion.take();
+            }
+            // 5xx приходит ответом, а не исключением (NoOpResponseErrorHandler), но тоже не должен прерывать
+            // попытку, которая ещё может ответить успешно
+            RuntimeException failure = null;
+            ResponseEntity<byte[]> serverError = null;
+            for (int remaining = attempts.size(); ; remaining--) {
+                try {
+                    ResponseEntity<byte[]> response = done.get();
+                    if (!response.getStatusCode().is5xxServerError()) {
+                        if (done != attempts.get(0)) {
+                            won.increment();
+                        }
+                        return response;
+                    }
+                    if (serverError == null) {
+                        serverError = response;
+                    }
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = unwrap(e);
+                    }
+                }
+                if (remaining == 1) {
+                    if (serverError != null) {
+                        return serverError;
+                    }
+                    throw failure;
+                }
+                done = completion.take();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResourceAccessException("Ожидание ответа сервера прервано");
+        } finally {
+            attempts.forEach(attempt -> attempt.cancel(true));
+        }
+    }
+
+    public void bindTo(MeterRegistry registry, String client) {
+        FunctionCounter.builder("gateway.hedge.requests", sent, LongAdder::sum)
+                .description("Вторые запросы, отправленные из-за медленного ответа")
+                .tag("client", client)
+                .tag("result", "sent")
+                .register(registry);
+        FunctionCounter.builder("gateway.hedge.requests", won, LongAdder::sum)
+                .description("Вторые запросы, ответившие раньше первых")
+                .tag("client", client)
+                .tag("result", "won")
+                .register(registry);
+        FunctionCounter.builder("gateway.hedge.requests", skipped, LongAdder::sum)
+                .description("Вторые запросы, не отправленные из-за исчерпанного бюджета")
+                .tag("client", client)
+                .tag("result", "skipped")
+                .register(registry);
+    }
+
+    private void earn() {
+        long current;
+        do {
+            current = budget.get();
+            if (current >= maxBudget) {
+                return;
+            }
+        } while (!budget.compareAndSet(current, Math.min(maxBudget, current + earnPerRequest)));
+    }
+
+    private boolean trySpend() {
+        long current;
+        do {
+            current = budget.get();
+            if (current < HEDGE_COST) {
+                return false;
+            }
+        } while (!budget.compareAndSet(current, current - HEDGE_COST));
+        return true;
+    }
+
+    private static RuntimeException unwrap(ExecutionException e) {
+        if (e.getCause() instanceof RuntimeException cause) {
+            return cause;
+        }
+        if (e.getCause() instanceof Error error) {
+            throw error;
+        }
+        return new ResourceAccessException("Ошибка запроса к серверу: " + e.getCause());
+    }
+}
@@ -0,0 +1,102 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+
+/**
+ * Один пул соединений к серверу на все клиенты шлюза.
+ */
+@Configuration
+@EnableConfigurationProperties({HttpClientProperties.class, ResilienceProperties.class, BalancingProperties.class})
+public class HttpClientConfig {
+
+    private static final String POOL_NAME = "shareit-server";
+    // BookingClient, ItemClient, UserClient, ItemRequestClient — у каждого своя переборка на общем пуле
+    static final int CLIENT_COUNT = 4;
+
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager shareItServerConnectionManager(HttpClientProperties properties) {
+        return PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(properties.getMaxTotal())
+                .setMaxConnPerRoute(properties.getMaxPerRoute())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(properties.getConnectTimeout()))
+                        .setSocketTimeout(Timeout.of(properties.getResponseTimeout()))
+                        .setValidateAfterInactivity(TimeValue.of(properties.getValidateAfterInactivity()))
+                        .build())
+                .build();
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient shareItServerHttpClient(PoolingHttpClientConnectionManager connectionManager,
+                                                       HttpClientProperties properties) {
+        TimeValue keepAlive = TimeValue.of(properties.getKeepAlive());
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.of(properties.getConnectionRequestTimeout()))
+                        .setResponseTimeout(Timeout.of(properties.getResponseTimeout()))
+                        .build())
+                .setKeepAliveStrategy((response, context) -> keepAlive)
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.of(properties.getIdleEviction()))
+                .build();
+    }
+
+    @Bean
+    public ClientHttpRequestFactory shareItServerRequestFactory(CloseableHttpClient shareItServerHttpClient,
+                                                                ObjectProvider<ServerBalancer> balancer) {
+        ClientHttpRequestFactory factory = new HttpComponentsClientHttpRequestFactory(shareItServerHttpClient);
+        ServerBalancer available = balancer.getIfAvailable();
+        return available == null ? factory : new LoadBalancingRequestFactory(factory, available);
+    }
+
+    // несколько экземпляров сервера: shareit-server.balancing.instances, метрики gateway.lb.*
+    @Bean(initMethod = "start", destroyMethod = "close")
+    @ConditionalOnProperty(prefix = "shareit-server.balancing", name = "instances")
+    public ServerBalancer shareItServerBalancer(BalancingProperties properties) {
+        return new ServerBalancer(properties);
+    }
+
+    // места переборок при текущем пуле; ошибка запуска, если переборки в пул не помещаются
+    @Bean
+    public BulkheadLimits shareItServerBulkheadLimits(HttpClientProperties properties, ResilienceProperties resilience,
+                                                      ObjectProvider<ServerBalancer> balancer) {
+        ServerBalancer available = balancer.getIfAvailable();
+        return BulkheadLimits.fit(properties, resilience, available == null ? 1 : available.size());
+    }
+
+    // одна на все потоковые выгрузки и загрузки, метрики с тегом client=streaming
+    @Bean
+    @ConditionalOnProperty(prefix = "shareit-server.resilience", name = "enabled", matchIfMissing = true)
+    public DownstreamGuard shareItServerStreamingGuard(ResilienceProperties resilience, BulkheadLimits limits) {
+        return DownstreamGuard.streaming(resilience, limits.streaming());
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "shareit-server.resilience", name = "enabled", matchIfMissing = true)
+    public MeterBinder shareItServerStreamingGuardMetrics(DownstreamGuard shareItServerStreamingGuard) {
+        return registry -> shareItServerStreamingGuard.bindTo(registry, "streaming");
+    }
+
+    // httpcomponents.httpclient.pool.* в /actuator/metrics: занятые, свободные и ожидающие соединения
+    @Bean
+    public MeterBinder shareItServerPoolMetrics(PoolingHttpClientConnectionManager shareItServerConnectionManager) {
+        return new PoolingHttpClientConnectionManagerMetricsBinder(shareItServerConnectionManager, POOL_NAME);
+    }
+}
@@ -0,0 +1,178 @@
+package ru.practicum.shareit.client;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.StreamingHttpOutputMessage;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ConnectException;
+import java.net.URI;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Подставляет в адрес запроса схему, хост и порт экземпляра, выбранного {@link ServerBalancer}, —
+ * клиенты по-прежнему строят адреса от shareit-server.url. Экземпляр выбирается при отправке, когда
+ * заголовки уже заполнены: запросы одного пользователя идут на его экземпляр, а его записи открывают окно
+ * привязки без ограничения нагрузкой (см. {@link ServerBalancer}). Запрос считается незавершённым,
+ * пока не закрыт ответ, поэтому потоковая выгрузка учитывается целиком. Тело, переданное через setBody,
+ * не буферизуется: загрузка идёт потоком.
+ */
+public class LoadBalancingRequestFactory implements ClientHttpRequestFactory {
+
+    private static final String USER_HEADER = "X-Sharer-User-Id";
+    // /users/{id}: запросы к пользователю без заголовка X-Sharer-User-Id
+    private static final Pattern USER_PATH = Pattern.compile("/users/(\\d+)(?:/.*)?");
+
+    private final ClientHttpRequestFactory delegate;
+    private final ServerBalancer balancer;
+
+    public LoadBalancingRequestFactory(ClientHttpRequestFactory delegate, ServerBalancer balancer) {
+        this.delegate = delegate;
+        this.balancer = balancer;
+    }
+
+    @Override
+    public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) {
+        return new BalancedRequest(uri, httpMethod);
+    }
+
+    static String userKey(HttpHeaders headers, URI uri) {
+        String userId = headers.getFirst(USER_HEADER);
+        if (userId != null && !userId.isBlank()) {
+            return userId.trim();
+        }
+        Matcher matcher = uri.getRawPath() == null ? null : USER_PATH.matcher(uri.getRawPath());
+        return matcher != null && matcher.matches() ? matcher.group(1) : null;
+    }
+
+    private class BalancedRequest implements ClientHttpRequest, StreamingHttpOutputMessage {
+
+        private final URI uri;
+        private final HttpMethod method;
+        private final HttpHeaders headers = new HttpHeaders();
+        private Body body;
+        private ByteArrayOutputStream bufferedBody;
+
+        BalancedRequest(URI uri, HttpMethod method) {
+            this.uri = uri;
+            this.method = method;
+        }
+
+        @Override
+        public HttpMethod getMethod() {
+            return method;
+        }
+
+        @Override
+        public URI getURI() {
+            return uri;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        // тело, записанное в поток, приходится держать до выбора экземпляра
+        @Override
+        public OutputStream getBody() {
+            if (bufferedBody == null) {
+                bufferedBody = new ByteArrayOutputStream();
+            }
+            return bufferedBody;
+        }
+
+        @Override
+        public void setBody(Body body) {
+            this.body = body;
+        }
+
+        @Override
+        public ClientHttpResponse execute() throws IOException {
+            String userKey = userKey(headers, uri);
+            ServerBalancer.Instance instance = balancer.choose(userKey);
+            instance.outstanding.incrementAndGet();
+            try {
+                return new BalancedResponse(send(instance), instance);
+            } catch (IOException | RuntimeException e) {
+                instance.outstanding.decrementAndGet();
+                if (e instanceof ConnectException) {
+                    balancer.connectionFailed(instance);
+                }
+                throw e;
+            } finally {
+                // окно считается от ответа: сервер открывает своё при фиксации, то есть раньше
+                if (method != HttpMethod.GET && method != HttpMethod.HEAD) {
+                    balancer.wrote(userKey);
+                }
+            }
+        }
+
+        private ClientHttpResponse send(ServerBalancer.Instance instance) throws IOException {
+            String query = uri.getRawQuery() == null ? "" : "?" + uri.getRawQuery();
+            URI target = URI.create(instance.uri.getScheme() + "://" + instance.uri.getRawAuthority()
+                    + uri.getRawPath() + query);
+            ClientHttpRequest request = delegate.createRequest(target, method);
+            request.getHeaders().putAll(headers);
+            if (body != null) {
+                if (request instanceof StreamingHttpOutputMessage streaming) {
+                    streaming.setBody(body);
+                } else {
+                    body.writeTo(request.getBody());
+                }
+            } else if (bufferedBody != null) {
+                request.getBody().write(bufferedBody.toByteArray());
+            }
+            return request.execute();
+        }
+    }
+
+    private static class BalancedResponse implements ClientHttpResponse {
+
+        private final ClientHttpResponse response;
+        private final ServerBalancer.Instance instance;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        BalancedResponse(ClientHttpResponse response, ServerBalancer.Instance instance) {
+            this.response = response;
+            this.instance = instance;
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() throws IOException {
+            return response.getStatusCode();
+        }
+
+        @Override
+        public String getStatusText() throws IOException {
+            return response.getStatusText();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return response.getHeaders();
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            return response.getBody();
+        }
+
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                instance.outstanding.decrementAndGet();
+            }
+            response.close();
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package ru.practicum.shareit.client;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Ограничения каждого клиента шлюза (bookings, items, users, requests) по отдельности.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "shareit-server.resilience")
+public class ResilienceProperties {
+    private boolean enabled = true;
+
+    // одновременных запросов одного клиента к серверу; 0 — поровну делить пул shareit-server.http.max-total
+    // за вычетом места потоковых запросов. Сумма по клиентам (вдвое больше с Hedger) и потоковых больше
+    // пула — ошибка запуска: иначе переборка не защищает от ожидания соединения. См. BulkheadLimits
+    private int maxConcurrent = 0;
+    // сколько ждать места, прежде чем ответить 503; 0 — не ждать
+    private Duration acquireTimeout = Duration.ZERO;
+
+    // размыкание: доля ошибок (5xx, исключения, ответы дольше slow-call-threshold) среди последних window-size вызовов
+    private int windowSize = 50;
+    private int minimumCalls = 20;
+    private int failureRateThreshold = 50;
+    private Duration slowCallThreshold = Duration.ofSeconds(5);
+    // сколько цепь разомкнута, прежде чем пропустить пробные вызовы
+    private Duration openDuration = Duration.ofSeconds(10);
+    private int halfOpenCalls = 5;
+
+    private Hedging hedging = new Hedging();
+    private Streaming streaming = new Streaming();
+
+    /**
+     * Повтор медленного GET на другом экземпляре сервера; включается, только если в
+     * shareit-server.balancing.instances не меньше двух экземпляров.
+     */
+    @Getter
+    @Setter
+    public static class Hedging {
+        private boolean enabled = false;
+        // через сколько без ответа отправлять второй запрос; обычно p95 времени ответа
+        private Duration delay = Duration.ofMillis(100);
+        // вторых запросов не больше этой доли GET, в процентах
+        private int budgetPercent = 5;
+        // сколько вторых запросов можно отправить подряд из накопленного бюджета
+        private int maxBurst = 10;
+    }
+
+    /**
+     * Общая переборка потоковых выгрузок бронирований и загрузок вещей: соединения под неё
+     * вычитаются из пула до деления между клиентами.
+     */
+    @Getter
+    @Setter
+    public static class Streaming {
+        private int maxConcurrent = 8;
+    }
+}
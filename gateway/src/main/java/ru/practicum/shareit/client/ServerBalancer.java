@@ -0,0 +1,272 @@
+package ru.practicum.shareit.client;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Выбор экземпляра сервера «из двух случайных — менее загруженный» по числу незавершённых запросов шлюза.
+ * Запрос с ключом пользователя идёт на экземпляр с наибольшим весом hash(ключ, экземпляр) среди доступных:
+ * пользователь остаётся на своём экземпляре, а при исключении экземпляра переезжают только его пользователи.
+ * Нагрузка на владельца ограничена: если у него незавершённых запросов больше sticky-load-factor × среднее,
+ * запрос выбирается «из двух случайных», чтобы один активный пользователь не перегрузил свой экземпляр.
+ * Исключение — пользователь, писавший через шлюз в течение sticky-window: окно чтения своих записей есть только
+ * у его экземпляра, поэтому его запросы, включая повторные попытки, идут только туда.
+ * Экземпляр исключается после unhealthyThreshold неудачных проверок /actuator/health подряд или сразу при отказе
+ * в соединении, и возвращается после healthyThreshold удачных проверок подряд.
+ * Если исключены все, запросы распределяются между всеми: лучше попытаться, чем отказать сразу.
+ * Повторная попытка того же запроса ({@link AttemptGroup}) по возможности уходит на другой экземпляр.
+ */
+@Slf4j
+public class ServerBalancer implements MeterBinder, AutoCloseable {
+
+    static final class Instance {
+        final URI uri;
+        final long seed;
+        final AtomicInteger outstanding = new AtomicInteger();
+        final LongAdder requests = new LongAdder();
+        volatile boolean healthy = true;
+        // меняются только потоком проверок; checkedHealthy — состояние, для которого идёт счёт проверок
+        boolean checkedHealthy = true;
+        int failedChecks;
+        int passedChecks;
+
+        Instance(URI uri) {
+            this.uri = uri;
+            this.seed = mix(uri.toString().hashCode());
+        }
+    }
+
+    private final List<Instance> instances;
+    private final BalancingProperties properties;
+    private final HttpClient healthClient;
+    private final ScheduledExecutorService checker;
+    // пользователи, писавшие через шлюз в течение sticky-window; null — окно не отслеживается
+    private final Cache<String, Boolean> recentWriters;
+
+    public ServerBalancer(BalancingProperties properties) {
+        if (!(properties.getStickyLoadFactor() > 1)) {
+            throw new IllegalStateException("shareit-server.balancing.sticky-load-factor должен быть больше 1: "
+                    + properties.getStickyLoadFactor());
+        }
+        this.properties = properties;
+        this.instances = properties.getInstances().stream().map(Instance::new).toList();
+        Duration window = properties.getStickyWindow();
+        this.recentWriters = window.isZero() || window.isNegative()
+                ? null
+                : Caffeine.newBuilder().expireAfterWrite(window).build();
+        this.healthClient = HttpClient.newBuilder()
+                .connectTimeout(properties.getHealthTimeout())
+                .build();
+        this.checker = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform()
+                .name("server-health-check")
+                .daemon()
+                .factory());
+    }
+
+    public void start() {
+        long interval = properties.getHealthInterval().toMillis();
+        checker.scheduleWithFixedDelay(this::checkAll, 0, interval, TimeUnit.MILLISECONDS);
+    }
+
+    Instance choose() {
+        return choose(null);
+    }
+
+    /**
+     * @param userKey ключ пользователя или null, если запрос можно отправить на любой экземпляр
+     */
+    Instance choose(String userKey) {
+        List<Instance> healthy = instances.stream().filter(instance -> instance.healthy).toList();
+        AttemptGroup group = AttemptGroup.current();
+        boolean pinned = userKey != null && properties.isStickyUsers() && recentlyWrote(userKey);
+        List<Instance> candidates = group == null || pinned
+                ? healthy
+                : healthy.stream().filter(instance -> !group.isUsed(instance)).toList();
+        if (candidates.isEmpty()) {
+            candidates = healthy.isEmpty() ? instances : healthy;
+        }
+        Instance chosen;
+        if (candidates.size() == 1) {
+            chosen = candidates.get(0);
+        } else {
+            Instance owner = userKey != null && properties.isStickyUsers() ? owner(candidates, userKey) : null;
+            chosen = owner != null && (pinned || withinLoadBound(owner, candidates))
+                    ? owner
+                    : lessLoadedOfTwo(candidates);
+        }
+        chosen.requests.increment();
+        if (group != null) {
+            group.use(chosen);
+            if (pinned) {
+                group.pin();
+            }
+        }
+        return chosen;
+    }
+
+    /**
+     * Запоминает запись пользователя: на сервере она открыла окно чтения своих записей.
+     */
+    void wrote(String userKey) {
+        if (recentWriters != null && userKey != null) {
+            recentWriters.put(userKey, Boolean.TRUE);
+        }
+    }
+
+    private boolean recentlyWrote(String userKey) {
+        return recentWriters != null && recentWriters.getIfPresent(userKey) != null;
+    }
+
+    private static Instance lessLoadedOfTwo(List<Instance> candidates) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(candidates.size());
+        int second = random.nextInt(candidates.size() - 1);
+        if (second >= first) {
+            second++;
+        }
+        Instance a = candidates.get(first);
+        Instance b = candidates.get(second);
+        return a.outstanding.get() <= b.outstanding.get() ? a : b;
+    }
+
+    // с этим запросом у владельца будет не больше sticky-load-factor × среднее по кандидатам (тоже с этим запросом)
+    private boolean withinLoadBound(Instance owner, List<Instance> candidates) {
+        long total = 1;
+        for (Instance instance : candidates) {
+            total += instance.outstanding.get();
+        }
+        double bound = Math.ceil(properties.getStickyLoadFactor() * total / candidates.size());
+        return owner.outstanding.get() + 1 <= bound;
+    }
+
+    // повторная попытка (AttemptGroup) исключает первый экземпляр и уходит на следующий по весу
+    private static Instance owner(List<Instance> candidates, String userKey) {
+        long key = mix(userKey.hashCode());
+        Instance owner = null;
+        long best = 0;
+        for (Instance instance : candidates) {
+            long weight = mix(key ^ instance.seed);
+            if (owner == null || Long.compareUnsigned(weight, best) > 0) {
+                owner = instance;
+                best = weight;
+            }
+        }
+        return owner;
+    }
+
+    // финализатор MurmurHash3: близкие ключи и адреса дают несвязанные веса
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb93fe53ec8a9L;
+        value ^= value >>> 33;
+        return value;
+    }
+
+    // соединение не установлено: не ждать следующей проверки
+    void connectionFailed(Instance instance) {
+        if (instance.healthy) {
+            instance.healthy = false;
+            log.warn("Экземпляр сервера {} исключён: нет соединения", instance.uri);
+        }
+    }
+
+    void checkAll() {
+        for (Instance instance : instances) {
+            // исключение из-за отказа в соединении тоже начинает счёт проверок заново
+            if (instance.checkedHealthy != instance.healthy) {
+                resetChecks(instance, instance.healthy);
+            }
+            boolean up = isUp(instance);
+            if (up) {
+                instance.failedChecks = 0;
+                if (!instance.healthy && ++instance.passedChecks >= properties.getHealthyThreshold()) {
+                    resetChecks(instance, true);
+                    log.info("Экземпляр сервера {} возвращён", instance.uri);
+                }
+            } else {
+                instance.passedChecks = 0;
+                if (instance.healthy && ++instance.failedChecks >= properties.getUnhealthyThreshold()) {
+                    resetChecks(instance, false);
+                    log.warn("Экземпляр сервера {} исключён: проверка {} не прошла", instance.uri,
+                            properties.getHealthPath());
+                }
+            }
+        }
+    }
+
+    private static void resetChecks(Instance instance, boolean healthy) {
+        instance.failedChecks = 0;
+        instance.passedChecks = 0;
+        instance.checkedHealthy = healthy;
+        instance.healthy = healthy;
+    }
+
+    private boolean isUp(Instance instance) {
+        try {
+            HttpRequest request = HttpRequest.newBuilder(instance.uri.resolve(properties.getHealthPath()))
+                    .timeout(properties.getHealthTimeout())
+                    .GET()
+                    .build();
+            return healthClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (Instance instance : instances) {
+            String name = instance.uri.getAuthority();
+            Gauge.builder("gateway.lb.outstanding", instance.outstanding, AtomicInteger::get)
+                    .description("Незавершённые запросы шлюза к экземпляру сервера")
+                    .tag("instance", name)
+                    .register(registry);
+            Gauge.builder("gateway.lb.healthy", instance, i -> i.healthy ? 1 : 0)
+                    .description("1 — экземпляр получает запросы, 0 — исключён")
+                    .tag("instance", name)
+                    .register(registry);
+            FunctionCounter.builder("gateway.lb.requests", instance.requests, LongAdder::sum)
+                    .description("Запросы шлюза, отправленные на экземпляр")
+                    .tag("instance", name)
+                    .register(registry);
+        }
+    }
+
+    @Override
+    public void close() {
+        checker.shutdownNow();
+        healthClient.close();
+    }
+
+    public int size() {
+        return instances.size();
+    }
+
+    // для проверок: состояние экземпляров по порядку
+    List<Boolean> healthStates() {
+        return instances.stream().map(instance -> instance.healthy).toList();
+    }
+}
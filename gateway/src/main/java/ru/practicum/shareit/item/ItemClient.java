@@ -1,16 +1,21 @@
 package ru.practicum.shareit.item;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
-import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.stereotype.Component;
 import org.springframework.web.util.DefaultUriBuilderFactory;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.BulkheadLimits;
+import ru.practicum.shareit.client.DownstreamGuard;
+import ru.practicum.shareit.client.ResilienceProperties;
 import ru.practicum.shareit.item.comment.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 
+import java.io.InputStream;
 import java.util.Map;
 
 @Component
@@ -18,29 +23,51 @@ public class ItemClient extends BaseClient {
 
     private static final String API_PREFIX = "/items";
 
+    private final ItemResponseCache cache;
+
     public ItemClient(@Value("${shareit-server.url}") String serverUrl,
-                      RestTemplateBuilder builder) {
+                      RestTemplateBuilder builder,
+                      ClientHttpRequestFactory requestFactory,
+                      ResilienceProperties resilience,
+                      BulkheadLimits limits,
+                      ObjectProvider<DownstreamGuard> streamingGuard,
+                      ItemResponseCache cache) {
         super(builder
                 .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                .requestFactory(() ->
-                        new HttpComponentsClientHttpRequestFactory(HttpClients.createDefault()))
-                .build());
+                .requestFactory(() -> requestFactory)
+                .build(),
+                resilience,
+                limits,
+                streamingGuard.getIfAvailable());
+        this.cache = cache;
     }
 
     public ResponseEntity<Object> create(Long userId, ItemDto dto) {
-        return post("", userId, dto);
+        ResponseEntity<Object> response = post("", userId, dto);
+        cache.invalidateSearch();
+        return response;
+    }
+
+    public ResponseEntity<Object> importItems(Long userId, MediaType contentType, InputStream body) {
+        ResponseEntity<Object> response = postStream("/bulk", userId, contentType, body);
+        cache.invalidateSearch();
+        return response;
     }
 
     public ResponseEntity<Object> addComment(Long userId, Long itemId, CommentDto dto) {
-        return post("/" + itemId + "/comment", userId, dto);
+        ResponseEntity<Object> response = post("/" + itemId + "/comment", userId, dto);
+        cache.invalidateDetail(itemId);
+        return response;
     }
 
     public ResponseEntity<Object> update(Long userId, Long itemId, ItemDto patch) {
-        return patch("/" + itemId, userId, patch);
+        ResponseEntity<Object> response = patch("/" + itemId, userId, patch);
+        cache.invalidateItem(itemId);
+        return response;
     }
 
     public ResponseEntity<Object> getById(Long userId, Long itemId) {
-        return get("/" + itemId, userId);
+        return cache.getDetail(itemId, userId, () -> get("/" + itemId, userId));
     }
 
     public ResponseEntity<Object> getOwnerItems(Long userId) {
@@ -48,6 +75,6 @@ public class ItemClient extends BaseClient {
     }
 
     public ResponseEntity<Object> search(String text) {
-        return get("/search?text={text}", Map.of("text", text));
+        return cache.getSearch(text, () -> get("/search?text={text}", Map.of("text", text)));
     }
 }
\ No newline at end of file
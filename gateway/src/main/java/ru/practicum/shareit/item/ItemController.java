@@ -1,14 +1,17 @@
 package ru.practicum.shareit.item;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Positive;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.shareit.item.comment.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 
+import java.io.IOException;
 import java.util.Collections;
 
 @RestController
@@ -27,6 +30,14 @@ public class ItemController {
         return itemClient.create(userId, dto);
     }
 
+    // строки проверяет сервер по мере разбора, шлюз только передаёт поток
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_NDJSON_VALUE, "text/csv"})
+    public ResponseEntity<Object> importItems(@RequestHeader(USER_HEADER) @Positive Long userId,
+                                              HttpServletRequest request) throws IOException {
+        return itemClient.importItems(userId, MediaType.parseMediaType(request.getContentType()),
+                request.getInputStream());
+    }
+
     @PostMapping("/{itemId}/comment")
     public ResponseEntity<Object> addComment(@RequestHeader(USER_HEADER) @Positive Long userId,
                                              @PathVariable @Positive Long itemId,
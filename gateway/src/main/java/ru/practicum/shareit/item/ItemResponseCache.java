@@ -0,0 +1,101 @@
+package ru.practicum.shareit.item;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Короткоживущий кэш ответов сервера на GET /items/{itemId} и GET /items/search.
+ * Карточка вещи зависит от пользователя (даты бронирований видит только владелец), поэтому ключ — вещь и пользователь;
+ * результат поиска от пользователя не зависит. Кэшируются только ответы 200.
+ * Изменения, прошедшие через шлюз, сбрасывают кэш сразу, остальные (бронирования) видны после TTL.
+ * Метрики доступны в /actuator/metrics/cache.* с тегами cache=items.detail и cache=items.search.
+ */
+@Component
+public class ItemResponseCache implements MeterBinder {
+
+    private record DetailKey(Long itemId, Long userId) {
+    }
+
+    private final boolean enabled;
+    private final Cache<DetailKey, ResponseEntity<Object>> details;
+    private final Cache<String, ResponseEntity<Object>> searches;
+    // растёт при каждом сбросе: ответ, запрошенный до сброса, в кэш уже не попадёт
+    private final AtomicLong generation = new AtomicLong();
+
+    public ItemResponseCache(@Value("${shareit.items.response-cache.enabled:true}") boolean enabled,
+                             @Value("${shareit.items.response-cache.max-size:10000}") long maxSize,
+                             @Value("${shareit.items.response-cache.detail-ttl:PT5S}") Duration detailTtl,
+                             @Value("${shareit.items.response-cache.search-ttl:PT10S}") Duration searchTtl) {
+        this.enabled = enabled;
+        this.details = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(detailTtl)
+                .recordStats()
+                .build();
+        this.searches = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(searchTtl)
+                .recordStats()
+                .build();
+    }
+
+    public ResponseEntity<Object> getDetail(Long itemId, Long userId, Supplier<ResponseEntity<Object>> loader) {
+        return get(details, new DetailKey(itemId, userId), loader);
+    }
+
+    public ResponseEntity<Object> getSearch(String text, Supplier<ResponseEntity<Object>> loader) {
+        return get(searches, text, loader);
+    }
+
+    // вещь изменилась: её карточка у всех пользователей и любой поиск могли устареть
+    public void invalidateItem(Long itemId) {
+        generation.incrementAndGet();
+        details.asMap().keySet().removeIf(key -> key.itemId().equals(itemId));
+        searches.invalidateAll();
+    }
+
+    // новый отзыв виден в карточке, но не влияет на поиск
+    public void invalidateDetail(Long itemId) {
+        generation.incrementAndGet();
+        details.asMap().keySet().removeIf(key -> key.itemId().equals(itemId));
+    }
+
+    public void invalidateSearch() {
+        generation.incrementAndGet();
+        searches.invalidateAll();
+    }
+
+    private <K> ResponseEntity<Object> get(Cache<K, ResponseEntity<Object>> cache, K key,
+                                           Supplier<ResponseEntity<Object>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        ResponseEntity<Object> cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        long before = generation.get();
+        ResponseEntity<Object> response = loader.get();
+        if (response.getStatusCode() == HttpStatus.OK && generation.get() == before) {
+            cache.put(key, response);
+        }
+        return response;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, details, "items.detail");
+        CaffeineCacheMetrics.monitor(registry, searches, "items.search");
+    }
+}
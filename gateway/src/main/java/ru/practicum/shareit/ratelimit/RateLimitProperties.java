@@ -0,0 +1,46 @@
+package ru.practicum.shareit.ratelimit;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Positive;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Validated
+@ConfigurationProperties(prefix = "shareit.rate-limit")
+public class RateLimitProperties {
+    private boolean enabled = true;
+    // сколько клиентов помнить одновременно и через сколько забывать молчащего
+    private long maxClients = 1_000_000;
+    private Duration idleExpiry = Duration.ofMinutes(10);
+
+    // GET, HEAD и OPTIONS
+    @Valid
+    private Budget reads = new Budget(20, 40);
+    // остальные методы
+    @Valid
+    private Budget writes = new Budget(5, 10);
+
+    @Getter
+    @Setter
+    public static class Budget {
+        // пополнение, запросов в секунду; ноль дал бы бесконечный интервал между токенами
+        @Positive
+        private double perSecond;
+        // сколько запросов можно сделать подряд после паузы
+        private int burst;
+
+        public Budget() {
+        }
+
+        public Budget(double perSecond, int burst) {
+            this.perSecond = perSecond;
+            this.burst = burst;
+        }
+    }
+}
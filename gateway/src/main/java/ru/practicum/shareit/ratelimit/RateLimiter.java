@@ -0,0 +1,86 @@
+package ru.practicum.shareit.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Корзины токенов по клиентам, отдельно для чтения и записи.
+ * Корзина хранится одним числом — временем, когда она снова станет полной (алгоритм GCRA):
+ * запрос проходит, если после его учёта это время не уходит дальше чем на burst интервалов вперёд.
+ * Обновление — compareAndSet без блокировок; на клиента приходится один AtomicLongArray из двух чисел.
+ */
+public class RateLimiter implements MeterBinder {
+
+    private static final int READ = 0;
+    private static final int WRITE = 1;
+
+    private final long[] intervalNanos = new long[2];
+    private final long[] toleranceNanos = new long[2];
+    private final Cache<String, AtomicLongArray> clients;
+    private final LongSupplier clock;
+    private final LongAdder rejectedReads = new LongAdder();
+    private final LongAdder rejectedWrites = new LongAdder();
+
+    public RateLimiter(RateLimitProperties properties) {
+        this(properties, System::nanoTime);
+    }
+
+    RateLimiter(RateLimitProperties properties, LongSupplier clock) {
+        configure(READ, properties.getReads());
+        configure(WRITE, properties.getWrites());
+        this.clients = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxClients())
+                .expireAfterAccess(properties.getIdleExpiry())
+                .build();
+        this.clock = clock;
+    }
+
+    private void configure(int kind, RateLimitProperties.Budget budget) {
+        intervalNanos[kind] = Math.round(1_000_000_000L / budget.getPerSecond());
+        toleranceNanos[kind] = intervalNanos[kind] * Math.max(budget.getBurst() - 1, 0);
+    }
+
+    /**
+     * @return 0, если запрос можно выполнить, иначе сколько наносекунд ждать до следующего токена
+     */
+    public long tryAcquire(String client, boolean write) {
+        int kind = write ? WRITE : READ;
+        long now = clock.getAsLong();
+        AtomicLongArray buckets = clients.get(client, key -> new AtomicLongArray(new long[]{now, now}));
+        while (true) {
+            long full = buckets.get(kind);
+            long next = Math.max(full, now) + intervalNanos[kind];
+            long wait = next - now - toleranceNanos[kind] - intervalNanos[kind];
+            if (wait > 0) {
+                (write ? rejectedWrites : rejectedReads).increment();
+                return wait;
+            }
+            if (buckets.compareAndSet(kind, full, next)) {
+                return 0;
+            }
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("gateway.rate-limit.rejected", rejectedReads, LongAdder::sum)
+                .description("Запросы, отклонённые шлюзом с 429")
+                .tag("kind", "read")
+                .register(registry);
+        FunctionCounter.builder("gateway.rate-limit.rejected", rejectedWrites, LongAdder::sum)
+                .description("Запросы, отклонённые шлюзом с 429")
+                .tag("kind", "write")
+                .register(registry);
+        Gauge.builder("gateway.rate-limit.clients", clients, Cache::estimatedSize)
+                .description("Клиенты, для которых хранятся корзины")
+                .register(registry);
+    }
+}
@@ -1,27 +1,35 @@
 package ru.practicum.shareit.request;
 
-import org.apache.hc.client5.http.impl.classic.HttpClients;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.stereotype.Component;
 import org.springframework.web.util.DefaultUriBuilderFactory;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.BulkheadLimits;
+import ru.practicum.shareit.client.ResilienceProperties;
 import ru.practicum.shareit.request.dto.ItemRequestCreateDto;
 
+import java.util.HashMap;
+import java.util.Map;
+
 @Component
 public class ItemRequestClient extends BaseClient {
 
     private static final String API_PREFIX = "/requests";
 
     public ItemRequestClient(@Value("${shareit-server.url}") String serverUrl,
-                             RestTemplateBuilder builder) {
+                             RestTemplateBuilder builder,
+                             ClientHttpRequestFactory requestFactory,
+                             ResilienceProperties resilience,
+                             BulkheadLimits limits) {
         super(builder
                 .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                .requestFactory(() ->
-                        new HttpComponentsClientHttpRequestFactory(HttpClients.createDefault()))
-                .build());
+                .requestFactory(() -> requestFactory)
+                .build(),
+                resilience,
+                limits);
     }
 
     public ResponseEntity<Object> create(Long userId, ItemRequestCreateDto dto) {
@@ -32,8 +40,15 @@ public class ItemRequestClient extends BaseClient {
         return get("", userId);
     }
 
-    public ResponseEntity<Object> getAll(Long userId) {
-        return get("/all", userId);
+    public ResponseEntity<Object> getAll(Long userId, Integer from, Integer size, String cursor) {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("from", from);
+        parameters.put("size", size);
+        if (cursor == null) {
+            return get("/all?from={from}&size={size}", userId, parameters);
+        }
+        parameters.put("cursor", cursor);
+        return get("/all?from={from}&size={size}&cursor={cursor}", userId, parameters);
     }
 
     public ResponseEntity<Object> getById(Long userId, Long requestId) {
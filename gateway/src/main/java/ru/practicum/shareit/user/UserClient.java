@@ -1,13 +1,14 @@
 package ru.practicum.shareit.user;
 
-import org.apache.hc.client5.http.impl.classic.HttpClients;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.stereotype.Component;
 import org.springframework.web.util.DefaultUriBuilderFactory;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.BulkheadLimits;
+import ru.practicum.shareit.client.ResilienceProperties;
 import ru.practicum.shareit.user.dto.UserDto;
 
 @Component
@@ -16,12 +17,16 @@ public class UserClient extends BaseClient {
     private static final String API_PREFIX = "/users";
 
     public UserClient(@Value("${shareit-server.url}") String serverUrl,
-                      RestTemplateBuilder builder) {
+                      RestTemplateBuilder builder,
+                      ClientHttpRequestFactory requestFactory,
+                      ResilienceProperties resilience,
+                      BulkheadLimits limits) {
         super(builder
                 .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                .requestFactory(() ->
-                        new HttpComponentsClientHttpRequestFactory(HttpClients.createDefault()))
-                .build());
+                .requestFactory(() -> requestFactory)
+                .build(),
+                resilience,
+                limits);
     }
 
     public ResponseEntity<Object> create(UserDto dto) {
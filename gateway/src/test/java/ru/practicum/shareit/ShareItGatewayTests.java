@@ -1,12 +1,38 @@
 package ru.practicum.shareit;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+import ru.practicum.shareit.booking.BookingClient;
+import ru.practicum.shareit.item.ItemClient;
 
-@SpringBootTest
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "shareit-server.http.max-total=77")
 class ShareItGatewayTests {
 
+    @Autowired
+    private BookingClient bookingClient;
+
+    @Autowired
+    private ItemClient itemClient;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @Test
     void contextLoads() {
     }
-}
\ No newline at end of file
+
+    @Test
+    void clientsShareOneInstrumentedConnectionPool() {
+        RestTemplate bookings = (RestTemplate) ReflectionTestUtils.getField(bookingClient, "restTemplate");
+        RestTemplate items = (RestTemplate) ReflectionTestUtils.getField(itemClient, "restTemplate");
+
+        assertThat(bookings.getRequestFactory()).isSameAs(items.getRequestFactory());
+        assertThat(meterRegistry.get("httpcomponents.httpclient.pool.total.max").gauge().value()).isEqualTo(77);
+    }
+}
@@ -1,6 +1,7 @@
 package ru.practicum.shareit.booking;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
@@ -10,9 +11,12 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.web.servlet.MockMvc;
 import ru.practicum.shareit.booking.dto.BookItemRequestDto;
+import ru.practicum.shareit.booking.dto.BookingBulkApprovalDto;
+import ru.practicum.shareit.booking.dto.BookingState;
 import ru.practicum.shareit.exceptions.ErrorHandler;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Map;
 
 import static org.mockito.ArgumentMatchers.any;
@@ -22,6 +26,7 @@ import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -77,6 +82,60 @@ class BookingControllerTest {
                 .andExpect(status().isBadRequest())
                 .andExpect(jsonPath("$.error").value("Unknown state: mystery"));
 
-        verify(bookingClient, never()).getBookings(anyLong(), any(), any(), any());
+        verify(bookingClient, never()).getBookings(anyLong(), any(), any(), any(), any());
+    }
+
+    @Test
+    void getOwnerBookingsForwardsPaginationAndCursor() throws Exception {
+        when(bookingClient.getOwnerBookings(2L, BookingState.WAITING, 0, 5, "abc"))
+                .thenReturn(ResponseEntity.ok(List.of()));
+
+        mockMvc.perform(get("/bookings/owner")
+                        .header(USER_HEADER, "2")
+                        .param("state", "waiting")
+                        .param("size", "5")
+                        .param("cursor", "abc"))
+                .andExpect(status().isOk());
+
+        verify(bookingClient).getOwnerBookings(2L, BookingState.WAITING, 0, 5, "abc");
+    }
+
+    @Test
+    void exportRoutesDelegateToStreamingClient() throws Exception {
+        mockMvc.perform(get("/bookings/export").header(USER_HEADER, "1"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/bookings/owner/export").header(USER_HEADER, "2"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/bookings/export").header(USER_HEADER, "0"))
+                .andExpect(status().isBadRequest());
+
+        verify(bookingClient).exportBookings(eq(1L), any(HttpServletResponse.class));
+        verify(bookingClient).exportOwnerBookings(eq(2L), any(HttpServletResponse.class));
+        verify(bookingClient, never()).exportBookings(eq(0L), any(HttpServletResponse.class));
+    }
+
+    @Test
+    void bulkApprovalIsValidatedAndForwarded() throws Exception {
+        BookingBulkApprovalDto dto = new BookingBulkApprovalDto(List.of(3L, 4L), true);
+        when(bookingClient.approveBookings(eq(2L), any(BookingBulkApprovalDto.class)))
+                .thenReturn(ResponseEntity.ok(List.of()));
+
+        mockMvc.perform(patch("/bookings/bulk")
+                        .header(USER_HEADER, "2")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(dto)))
+                .andExpect(status().isOk());
+        mockMvc.perform(patch("/bookings/bulk")
+                        .header(USER_HEADER, "2")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"bookingIds\":[],\"approved\":true}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(patch("/bookings/bulk")
+                        .header(USER_HEADER, "2")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"bookingIds\":[1,-5]}"))
+                .andExpect(status().isBadRequest());
+
+        verify(bookingClient).approveBookings(2L, dto);
     }
 }
@@ -0,0 +1,266 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.client.ExpectedCount;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.content;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+class BaseClientTest {
+
+    private MockRestServiceServer server;
+    private BaseClient client;
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        RestTemplate restTemplate = new RestTemplate();
+        client = new BaseClient(restTemplate);
+        server = MockRestServiceServer.bindTo(restTemplate).build();
+        registry = new SimpleMeterRegistry();
+        client.bindTo(registry);
+    }
+
+    @Test
+    void hedgerIsCreatedOnlyWhenLimitsCountItsConnection() {
+        ResilienceProperties resilience = new ResilienceProperties();
+        resilience.getHedging().setEnabled(true);
+
+        assertThat(hedgeMeters(new BaseClient(new RestTemplate(), resilience, new BulkheadLimits(10, 8, false))))
+                .isZero();
+        assertThat(hedgeMeters(new BaseClient(new RestTemplate(), resilience, new BulkheadLimits(10, 8, true))))
+                .isPositive();
+    }
+
+    @Test
+    void openStreamingCircuitFailsExportAndImportFast() {
+        ResilienceProperties resilience = new ResilienceProperties();
+        resilience.setWindowSize(2);
+        resilience.setMinimumCalls(2);
+        RestTemplate restTemplate = new RestTemplate();
+        BaseClient streaming = new BaseClient(restTemplate, resilience, new BulkheadLimits(10, 1, false),
+                DownstreamGuard.streaming(resilience, 1));
+        MockRestServiceServer upstream = MockRestServiceServer.bindTo(restTemplate).build();
+        upstream.expect(ExpectedCount.twice(), requestTo("/bookings/export"))
+                .andRespond(withStatus(HttpStatus.INTERNAL_SERVER_ERROR));
+        streaming.stream("/bookings/export", 1L, new MockHttpServletResponse());
+        streaming.stream("/bookings/export", 1L, new MockHttpServletResponse());
+
+        MockHttpServletResponse export = new MockHttpServletResponse();
+        streaming.stream("/bookings/export", 1L, export);
+        ResponseEntity<Object> imported = streaming.postStream("/items/bulk", 1L, MediaType.parseMediaType("text/csv"),
+                new ByteArrayInputStream(new byte[0]));
+
+        assertThat(export.getStatus()).isEqualTo(503);
+        assertThat(export.getHeader(HttpHeaders.RETRY_AFTER)).isNotNull();
+        assertThat(imported.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        upstream.verify();
+    }
+
+    @Test
+    void successBodyAndHeadersArePassedThroughUnchanged() {
+        String json = "[{\"id\":1,\"name\":\"Дрель\"}]";
+        HttpHeaders upstream = new HttpHeaders();
+        upstream.add("X-Next-Cursor", "abc");
+        upstream.add(HttpHeaders.TRANSFER_ENCODING, "chunked");
+        server.expect(requestTo("/bookings"))
+                .andExpect(header("X-Sharer-User-Id", "1"))
+                .andRespond(withSuccess(json, MediaType.APPLICATION_JSON).headers(upstream));
+
+        ResponseEntity<Object> response = client.get("/bookings", 1L);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isEqualTo(json.getBytes(StandardCharsets.UTF_8));
+        assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_JSON);
+        assertThat(response.getHeaders().getFirst("X-Next-Cursor")).isEqualTo("abc");
+        assertThat(response.getHeaders().containsKey(HttpHeaders.TRANSFER_ENCODING)).isFalse();
+        server.verify();
+    }
+
+    @Test
+    void errorResponseIsPassedThroughWithoutException() {
+        String error = "{\"error\":\"Пользователь не найден: 99\"}";
+        server.expect(requestTo("/users/99"))
+                .andRespond(withStatus(HttpStatus.NOT_FOUND)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(error));
+
+        ResponseEntity<Object> response = client.get("/users/99");
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        assertThat(response.getBody()).isEqualTo(error.getBytes(StandardCharsets.UTF_8));
+        assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_JSON);
+    }
+
+    @Test
+    void streamCopiesUpstreamBodyAndHeadersIntoServletResponse() throws Exception {
+        String ndjson = "{\"id\":2}\n{\"id\":1}\n";
+        server.expect(requestTo("/bookings/export"))
+                .andExpect(header("X-Sharer-User-Id", "1"))
+                .andRespond(withSuccess(ndjson, MediaType.parseMediaType("application/x-ndjson")));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        client.stream("/bookings/export", 1L, response);
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentType()).isEqualTo("application/x-ndjson");
+        assertThat(response.getContentAsString(StandardCharsets.UTF_8)).isEqualTo(ndjson);
+        server.verify();
+    }
+
+    @Test
+    void postStreamSendsRequestBodyAndPassesResponseThrough() {
+        String csv = "name,description,available\nDrill,Cordless drill,true\n";
+        String report = "{\"created\":1,\"rejected\":0,\"errors\":[]}";
+        server.expect(requestTo("/items/bulk"))
+                .andExpect(method(HttpMethod.POST))
+                .andExpect(header("X-Sharer-User-Id", "1"))
+                .andExpect(content().contentType("text/csv"))
+                .andExpect(content().string(csv))
+                .andRespond(withSuccess(report, MediaType.APPLICATION_JSON));
+
+        ResponseEntity<Object> response = client.postStream("/items/bulk", 1L, MediaType.parseMediaType("text/csv"),
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isEqualTo(report.getBytes(StandardCharsets.UTF_8));
+        server.verify();
+    }
+
+    @Test
+    void concurrentIdenticalGetsShareOneUpstreamCall() throws Exception {
+        int callers = 8;
+        String json = "{\"id\":1}";
+        CountDownLatch release = new CountDownLatch(1);
+        server.expect(ExpectedCount.once(), requestTo("/items/1"))
+                .andExpect(header("X-Sharer-User-Id", "1"))
+                .andRespond(request -> {
+                    try {
+                        release.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return withSuccess(json, MediaType.APPLICATION_JSON).createResponse(request);
+                });
+
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<ResponseEntity<Object>>> responses = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                responses.add(executor.submit(() -> client.get("/items/1", 1L)));
+            }
+            // первый запрос держится на сервере, пока остальные не присоединятся к нему
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (requests("coalesced") < callers - 1 && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            for (Future<ResponseEntity<Object>> response : responses) {
+                assertThat(response.get(10, TimeUnit.SECONDS).getBody())
+                        .isEqualTo(json.getBytes(StandardCharsets.UTF_8));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(requests("upstream")).isEqualTo(1);
+        assertThat(requests("coalesced")).isEqualTo(callers - 1);
+        server.verify();
+    }
+
+    @Test
+    void getsOfDifferentUsersAndCompletedGetsAreNotShared() {
+        server.expect(requestTo("/items/1")).andExpect(header("X-Sharer-User-Id", "1"))
+                .andRespond(withSuccess("{}", MediaType.APPLICATION_JSON));
+        server.expect(requestTo("/items/1")).andExpect(header("X-Sharer-User-Id", "2"))
+                .andRespond(withSuccess("{}", MediaType.APPLICATION_JSON));
+        server.expect(requestTo("/items/1")).andExpect(header("X-Sharer-User-Id", "1"))
+                .andRespond(withSuccess("{}", MediaType.APPLICATION_JSON));
+
+        client.get("/items/1", 1L);
+        client.get("/items/1", 2L);
+        client.get("/items/1", 1L);
+
+        assertThat(requests("upstream")).isEqualTo(3);
+        assertThat(requests("coalesced")).isZero();
+        server.verify();
+    }
+
+    @Test
+    void getAfterCompletedWriteDoesNotJoinGetStartedBeforeIt() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        server.expect(requestTo("/items/1")).andExpect(method(HttpMethod.GET))
+                .andRespond(request -> {
+                    started.countDown();
+                    try {
+                        release.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return withSuccess("{\"name\":\"old\"}", MediaType.APPLICATION_JSON).createResponse(request);
+                });
+        server.expect(requestTo("/items/1")).andExpect(method(HttpMethod.PATCH))
+                .andRespond(withSuccess("{\"name\":\"new\"}", MediaType.APPLICATION_JSON));
+        server.expect(requestTo("/items/1")).andExpect(method(HttpMethod.GET))
+                .andRespond(withSuccess("{\"name\":\"new\"}", MediaType.APPLICATION_JSON));
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<ResponseEntity<Object>> before = executor.submit(() -> client.get("/items/1", 1L));
+            assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+
+            client.patch("/items/1", 1L, Map.of("name", "new"));
+            Future<ResponseEntity<Object>> after = executor.submit(() -> client.get("/items/1", 1L));
+
+            // GET после записи идёт на сервер сам, не дожидаясь ответа, начатого до записи
+            assertThat(after.get(5, TimeUnit.SECONDS).getBody())
+                    .isEqualTo("{\"name\":\"new\"}".getBytes(StandardCharsets.UTF_8));
+            release.countDown();
+            assertThat(before.get(10, TimeUnit.SECONDS).getBody())
+                    .isEqualTo("{\"name\":\"old\"}".getBytes(StandardCharsets.UTF_8));
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+        assertThat(requests("upstream")).isEqualTo(2);
+        assertThat(requests("coalesced")).isZero();
+        server.verify();
+    }
+
+    private double requests(String result) {
+        return registry.get("gateway.get.requests").tag("result", result).functionCounter().count();
+    }
+
+    private static int hedgeMeters(BaseClient client) {
+        SimpleMeterRegistry meters = new SimpleMeterRegistry();
+        client.bindTo(meters);
+        return meters.find("gateway.hedge.requests").meters().size();
+    }
+}
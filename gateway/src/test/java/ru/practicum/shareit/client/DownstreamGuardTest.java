@@ -0,0 +1,198 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DownstreamGuardTest {
+
+    private final AtomicLong now = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+    private final AtomicInteger upstreamCalls = new AtomicInteger();
+    private ResilienceProperties properties;
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ResilienceProperties();
+        properties.setMaxConcurrent(10);
+        properties.setWindowSize(4);
+        properties.setMinimumCalls(4);
+        properties.setFailureRateThreshold(50);
+        properties.setOpenDuration(Duration.ofSeconds(10));
+        properties.setHalfOpenCalls(2);
+        properties.setSlowCallThreshold(Duration.ofSeconds(1));
+        registry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void circuitOpensOnFailureRateAndFailsFastWith503() {
+        DownstreamGuard guard = guard();
+        call(guard, HttpStatus.OK);
+        call(guard, HttpStatus.OK);
+        call(guard, HttpStatus.BAD_REQUEST);
+        assertThatThrownBy(() -> guard.call(() -> {
+            upstreamCalls.incrementAndGet();
+            throw new ResourceAccessException("Read timed out");
+        })).isInstanceOf(ResourceAccessException.class);
+        assertThat(state()).isEqualTo(0);
+
+        call(guard, HttpStatus.INTERNAL_SERVER_ERROR);
+        assertThat(state()).isEqualTo(1);
+
+        ResponseEntity<byte[]> rejected = call(guard, HttpStatus.OK);
+        assertThat(rejected.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(rejected.getHeaders().getFirst("Retry-After")).isEqualTo("10");
+        assertThat(upstreamCalls).hasValue(5);
+        assertThat(rejected("circuit_open")).isEqualTo(1);
+    }
+
+    @Test
+    void halfOpenClosesAfterSuccessfulTrialsAndReopensOnFailure() {
+        DownstreamGuard guard = guard();
+        for (int i = 0; i < 4; i++) {
+            call(guard, HttpStatus.BAD_GATEWAY);
+        }
+        assertThat(state()).isEqualTo(1);
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        call(guard, HttpStatus.OK);
+        assertThat(state()).isEqualTo(2);
+        call(guard, HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(state()).isEqualTo(1);
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        call(guard, HttpStatus.OK);
+        call(guard, HttpStatus.OK);
+        assertThat(state()).isEqualTo(0);
+        assertThat(transitions("open")).isEqualTo(2);
+        assertThat(transitions("half_open")).isEqualTo(2);
+        assertThat(transitions("closed")).isEqualTo(1);
+    }
+
+    @Test
+    void slowSuccessfulCallsCountAsFailures() {
+        DownstreamGuard guard = guard();
+        for (int i = 0; i < 2; i++) {
+            call(guard, HttpStatus.OK);
+        }
+        for (int i = 0; i < 2; i++) {
+            guard.call(() -> {
+                now.addAndGet(TimeUnit.SECONDS.toNanos(2));
+                return ResponseEntity.ok(new byte[0]);
+            });
+        }
+        assertThat(state()).isEqualTo(1);
+    }
+
+    @Test
+    void fullBulkheadRejectsWithoutWaiting() throws Exception {
+        properties.setMaxConcurrent(1);
+        DownstreamGuard guard = guard();
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread slow = Thread.ofVirtual().start(() -> guard.call(() -> {
+            entered.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return ResponseEntity.ok(new byte[0]);
+        }));
+        assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(registry.get("gateway.bulkhead.active").gauge().value()).isEqualTo(1);
+        assertThat(call(guard, HttpStatus.OK).getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(rejected("bulkhead_full")).isEqualTo(1);
+
+        release.countDown();
+        slow.join(5000);
+        assertThat(call(guard, HttpStatus.OK).getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+
+    @Test
+    void bulkheadsShareConnectionPool() {
+        ApplicationContextRunner runner = new ApplicationContextRunner()
+                .withUserConfiguration(HttpClientConfig.class)
+                .withPropertyValues("shareit-server.http.max-total=200");
+        // 8 соединений потоковым запросам, остальное поровну клиентам; свойства не меняются
+        runner.run(context -> {
+            assertThat(context.getBean(BulkheadLimits.class))
+                    .isEqualTo(new BulkheadLimits((200 - 8) / HttpClientConfig.CLIENT_COUNT, 8, false));
+            assertThat(context.getBean(ResilienceProperties.class).getMaxConcurrent()).isZero();
+        });
+        runner.withPropertyValues("shareit-server.resilience.max-concurrent=49")
+                .run(context -> assertThat(context).hasFailed());
+        runner.withPropertyValues("shareit-server.resilience.max-concurrent=48")
+                .run(context -> assertThat(context).hasNotFailed());
+        runner.withPropertyValues("shareit-server.resilience.streaming.max-concurrent=200")
+                .run(context -> assertThat(context).hasFailed());
+    }
+
+    @Test
+    void hedgingCountsSecondConnectionAgainstPool() {
+        HttpClientProperties http = new HttpClientProperties();
+        http.setMaxTotal(208);
+        properties.setMaxConcurrent(0);
+        properties.getHedging().setEnabled(true);
+
+        assertThat(BulkheadLimits.fit(http, properties, 1)).isEqualTo(new BulkheadLimits(50, 8, false));
+        assertThat(BulkheadLimits.fit(http, properties, 2)).isEqualTo(new BulkheadLimits(25, 8, true));
+
+        properties.setMaxConcurrent(26);
+        assertThatThrownBy(() -> BulkheadLimits.fit(http, properties, 2)).isInstanceOf(IllegalStateException.class);
+        assertThat(BulkheadLimits.fit(http, properties, 1).perClient()).isEqualTo(26);
+    }
+
+    @Test
+    void streamingGuardIgnoresSlowCalls() {
+        // как у DownstreamGuard.streaming, но с часами теста
+        DownstreamGuard guard = new DownstreamGuard("streaming", properties, 1, null, now::get);
+        for (int i = 0; i < 4; i++) {
+            assertThat(guard.call(() -> {
+                now.addAndGet(TimeUnit.MINUTES.toNanos(5));
+                return ResponseEntity.ok(new byte[0]);
+            }).getStatusCode()).isEqualTo(HttpStatus.OK);
+        }
+        assertThat(guard.call(() -> ResponseEntity.ok(new byte[0])).getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+
+    private DownstreamGuard guard() {
+        DownstreamGuard guard = new DownstreamGuard("BookingClient", properties, properties.getMaxConcurrent(),
+                properties.getSlowCallThreshold(), now::get);
+        guard.bindTo(registry, "BookingClient");
+        return guard;
+    }
+
+    private ResponseEntity<byte[]> call(DownstreamGuard guard, HttpStatus status) {
+        return guard.call(() -> {
+            upstreamCalls.incrementAndGet();
+            return ResponseEntity.status(status).body(new byte[0]);
+        });
+    }
+
+    private double state() {
+        return registry.get("gateway.circuit.state").gauge().value();
+    }
+
+    private double transitions(String state) {
+        return registry.get("gateway.circuit.transitions").tag("state", state).functionCounter().count();
+    }
+
+    private double rejected(String reason) {
+        return registry.get("gateway.downstream.rejected").tag("reason", reason).functionCounter().count();
+    }
+}
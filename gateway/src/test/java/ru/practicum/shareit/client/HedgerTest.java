@@ -0,0 +1,192 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class HedgerTest {
+
+    private ResilienceProperties.Hedging properties;
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ResilienceProperties.Hedging();
+        properties.setEnabled(true);
+        properties.setDelay(Duration.ofMillis(50));
+        registry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void slowFirstAttemptIsHedgedAndCancelled() throws Exception {
+        Hedger hedger = hedger();
+        AtomicInteger attempts = new AtomicInteger();
+        CountDownLatch cancelled = new CountDownLatch(1);
+        Supplier<ResponseEntity<byte[]>> request = () -> {
+            if (attempts.incrementAndGet() == 1) {
+                try {
+                    Thread.sleep(TimeUnit.SECONDS.toMillis(30));
+                } catch (InterruptedException e) {
+                    cancelled.countDown();
+                    throw new ResourceAccessException("прервано");
+                }
+            }
+            return ResponseEntity.ok("second".getBytes(StandardCharsets.UTF_8));
+        };
+
+        long start = System.nanoTime();
+        ResponseEntity<byte[]> response = hedger.call(request);
+
+        assertThat(new String(response.getBody(), StandardCharsets.UTF_8)).isEqualTo("second");
+        assertThat(System.nanoTime() - start).isLessThan(TimeUnit.SECONDS.toNanos(5));
+        assertThat(cancelled.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(hedges("sent")).isEqualTo(1);
+        assertThat(hedges("won")).isEqualTo(1);
+    }
+
+    @Test
+    void fastAttemptIsNotHedged() {
+        // первый вызов в холодной JVM может идти дольше 50 мс
+        properties.setDelay(Duration.ofSeconds(1));
+        Hedger hedger = hedger();
+        AtomicInteger attempts = new AtomicInteger();
+
+        hedger.call(() -> {
+            attempts.incrementAndGet();
+            return ResponseEntity.ok(new byte[0]);
+        });
+
+        assertThat(attempts).hasValue(1);
+        assertThat(hedges("sent")).isZero();
+    }
+
+    @Test
+    void requestOfRecentWriterIsNotHedged() {
+        Hedger hedger = hedger();
+        AtomicInteger attempts = new AtomicInteger();
+
+        ResponseEntity<byte[]> response = hedger.call(() -> {
+            attempts.incrementAndGet();
+            // так ServerBalancer отмечает пользователя, писавшего в течение sticky-window
+            AttemptGroup.current().pin();
+            try {
+                Thread.sleep(150);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return ResponseEntity.ok(new byte[0]);
+        });
+
+        assertThat(response.getStatusCode().is2xxSuccessful()).isTrue();
+        assertThat(attempts).hasValue(1);
+        assertThat(hedges("sent")).isZero();
+        assertThat(hedges("skipped")).isZero();
+    }
+
+    @Test
+    void budgetCapsHedges() {
+        properties.setBudgetPercent(0);
+        properties.setMaxBurst(1);
+        Hedger hedger = hedger();
+        AtomicInteger attempts = new AtomicInteger();
+        Supplier<ResponseEntity<byte[]>> slow = () -> {
+            attempts.incrementAndGet();
+            try {
+                Thread.sleep(150);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return ResponseEntity.ok(new byte[0]);
+        };
+
+        hedger.call(slow);
+        hedger.call(slow);
+
+        assertThat(attempts).hasValue(3);
+        assertThat(hedges("sent")).isEqualTo(1);
+        assertThat(hedges("skipped")).isEqualTo(1);
+    }
+
+    @Test
+    void failureOfOneAttemptWaitsForTheOther() {
+        Hedger hedger = hedger();
+        AtomicInteger attempts = new AtomicInteger();
+
+        ResponseEntity<byte[]> response = hedger.call(() -> {
+            if (attempts.incrementAndGet() == 1) {
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                throw new ResourceAccessException("Connection reset");
+            }
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return ResponseEntity.ok(new byte[0]);
+        });
+
+        assertThat(response.getStatusCode().is2xxSuccessful()).isTrue();
+        assertThatThrownBy(() -> hedger.call(() -> {
+            throw new ResourceAccessException("Connection refused");
+        })).isInstanceOf(ResourceAccessException.class).hasMessage("Connection refused");
+    }
+
+    @Test
+    void fastServerErrorOfHedgeDoesNotCancelSlowerSuccess() {
+        Hedger hedger = hedger();
+        AtomicInteger attempts = new AtomicInteger();
+
+        ResponseEntity<byte[]> response = hedger.call(() -> {
+            if (attempts.incrementAndGet() == 2) {
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+            }
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ResourceAccessException("прервано");
+            }
+            return ResponseEntity.ok("first".getBytes(StandardCharsets.UTF_8));
+        });
+
+        assertThat(new String(response.getBody(), StandardCharsets.UTF_8)).isEqualTo("first");
+        assertThat(hedges("won")).isZero();
+
+        // 5xx от обеих попыток отдаётся клиенту как есть
+        assertThat(hedger.call(() -> {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return ResponseEntity.status(HttpStatus.BAD_GATEWAY).<byte[]>build();
+        }).getStatusCode()).isEqualTo(HttpStatus.BAD_GATEWAY);
+    }
+
+    private Hedger hedger() {
+        Hedger hedger = new Hedger(properties);
+        hedger.bindTo(registry, "ItemClient");
+        return hedger;
+    }
+
+    private double hedges(String result) {
+        return registry.get("gateway.hedge.requests").tag("result", result).functionCounter().count();
+    }
+}
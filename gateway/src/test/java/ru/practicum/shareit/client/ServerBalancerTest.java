@@ -0,0 +1,290 @@
+package ru.practicum.shareit.client;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.DefaultUriBuilderFactory;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Экземпляры сервера — три HttpServer из JDK на свободных портах; каждый отвечает своим номером.
+ */
+class ServerBalancerTest {
+
+    private final List<HttpServer> servers = new ArrayList<>();
+    private final List<AtomicInteger> healthStatuses = new ArrayList<>();
+    private BalancingProperties properties;
+    private ServerBalancer balancer;
+    private RestTemplate restTemplate;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        properties = new BalancingProperties();
+        for (int i = 0; i < 3; i++) {
+            properties.getInstances().add(startServer(i));
+        }
+        properties.setHealthInterval(Duration.ofMillis(50));
+        properties.setHealthTimeout(Duration.ofSeconds(1));
+        balancer = new ServerBalancer(properties);
+        balancer.start();
+        restTemplate = restTemplate(balancer);
+    }
+
+    private static RestTemplate restTemplate(ServerBalancer balancer) {
+        RestTemplate restTemplate = new RestTemplate(
+                new LoadBalancingRequestFactory(new SimpleClientHttpRequestFactory(), balancer));
+        // клиенты строят адреса от shareit-server.url, балансировщик подменяет хост и порт
+        restTemplate.setUriTemplateHandler(new DefaultUriBuilderFactory("http://shareit-server/items"));
+        return restTemplate;
+    }
+
+    @AfterEach
+    void tearDown() {
+        balancer.close();
+        servers.forEach(server -> server.stop(0));
+    }
+
+    @Test
+    void requestsAreSpreadOverAllInstances() {
+        Map<String, Integer> hits = send(300);
+
+        assertThat(hits.keySet()).containsExactlyInAnyOrder("0", "1", "2");
+        assertThat(hits.values()).allMatch(count -> count > 50);
+    }
+
+    @Test
+    void lessLoadedOfTwoCandidatesIsChosen() {
+        BalancingProperties properties = new BalancingProperties();
+        properties.setInstances(List.of(URI.create("http://a:1"), URI.create("http://b:1")));
+        try (ServerBalancer twoInstances = new ServerBalancer(properties)) {
+            ServerBalancer.Instance busy = twoInstances.choose();
+            busy.outstanding.set(5);
+
+            for (int i = 0; i < 100; i++) {
+                assertThat(twoInstances.choose()).isNotSameAs(busy);
+            }
+        }
+    }
+
+    @Test
+    void repeatedAttemptOfSameRequestGoesToAnotherInstance() {
+        for (int i = 0; i < 50; i++) {
+            List<String> answers = new AttemptGroup().run(() -> List.of(
+                    restTemplate.getForObject("/1", String.class),
+                    restTemplate.getForObject("/1", String.class),
+                    restTemplate.getForObject("/1", String.class)));
+
+            assertThat(answers).doesNotHaveDuplicates();
+        }
+    }
+
+    @Test
+    void requestsOfOneUserStayOnOneInstance() {
+        Map<String, String> instanceByUser = new HashMap<>();
+        for (int user = 1; user <= 30; user++) {
+            for (int i = 0; i < 5; i++) {
+                String answer = sendAs(String.valueOf(user), "/1");
+                assertThat(instanceByUser.putIfAbsent(String.valueOf(user), answer)).isIn(null, answer);
+            }
+        }
+        assertThat(instanceByUser.values()).contains("0", "1", "2");
+
+        // /users/{id} без заголовка идёт туда же, куда запросы с X-Sharer-User-Id этого пользователя
+        for (int user = 1; user <= 30; user++) {
+            String answer = restTemplate.getForObject("http://shareit-server/users/" + user, String.class);
+            assertThat(answer).isEqualTo(instanceByUser.get(String.valueOf(user)));
+        }
+    }
+
+    @Test
+    void overloadedOwnerSendsUserToLessLoadedInstance() {
+        BalancingProperties properties = new BalancingProperties();
+        properties.setInstances(List.of(URI.create("http://a:1"), URI.create("http://b:1"), URI.create("http://c:1")));
+        try (ServerBalancer threeInstances = new ServerBalancer(properties)) {
+            ServerBalancer.Instance owner = threeInstances.choose("42");
+            assertThat(threeInstances.choose("42")).isSameAs(owner);
+
+            // с новым запросом у владельца 3, среднее (2 + 1) / 3 = 1, граница ceil(1.25) = 2
+            owner.outstanding.set(2);
+            for (int i = 0; i < 100; i++) {
+                assertThat(threeInstances.choose("42")).isNotSameAs(owner);
+            }
+
+            owner.outstanding.set(0);
+            assertThat(threeInstances.choose("42")).isSameAs(owner);
+        }
+    }
+
+    @Test
+    void userWhoJustWroteStaysOnOwnerDespiteLoadAndRepeatedAttempts() {
+        BalancingProperties properties = new BalancingProperties();
+        properties.setInstances(List.of(URI.create("http://a:1"), URI.create("http://b:1")));
+        try (ServerBalancer twoInstances = new ServerBalancer(properties)) {
+            ServerBalancer.Instance owner = twoInstances.choose("42");
+            owner.outstanding.set(2);
+            assertThat(twoInstances.choose("42")).isNotSameAs(owner);
+
+            twoInstances.wrote("42");
+            for (int i = 0; i < 100; i++) {
+                assertThat(twoInstances.choose("42")).isSameAs(owner);
+            }
+            AttemptGroup group = new AttemptGroup();
+            List<ServerBalancer.Instance> attempts = group.run(() -> List.of(
+                    twoInstances.choose("42"), twoInstances.choose("42")));
+            assertThat(attempts).containsOnly(owner);
+            assertThat(group.isPinned()).isTrue();
+        }
+    }
+
+    @Test
+    void usersOfEjectedInstanceMoveAndOthersStay() throws Exception {
+        Map<String, String> before = new HashMap<>();
+        for (int user = 1; user <= 30; user++) {
+            before.put(String.valueOf(user), sendAs(String.valueOf(user), "/1"));
+        }
+        healthStatuses.get(1).set(503);
+        await(() -> balancer.healthStates().equals(List.of(true, false, true)));
+
+        before.forEach((user, answer) -> {
+            String after = sendAs(user, "/1");
+            if (answer.equals("1")) {
+                assertThat(after).isNotEqualTo("1");
+            } else {
+                assertThat(after).isEqualTo(answer);
+            }
+        });
+    }
+
+    @Test
+    void failingHealthCheckEjectsInstanceAndPassingReadmitsIt() throws Exception {
+        healthStatuses.get(1).set(503);
+        await(() -> balancer.healthStates().equals(List.of(true, false, true)));
+
+        assertThat(send(100)).doesNotContainKey("1");
+
+        healthStatuses.get(1).set(200);
+        await(() -> balancer.healthStates().equals(List.of(true, true, true)));
+        assertThat(send(300)).containsKey("1");
+    }
+
+    @Test
+    void refusedConnectionEjectsInstanceWithoutWaitingForHealthCheck() {
+        servers.get(2).stop(0);
+        // без проверок здоровья: исключить экземпляр может только сам отказ в соединении
+        try (ServerBalancer passive = new ServerBalancer(properties)) {
+            RestTemplate passiveTemplate = restTemplate(passive);
+            int failures = 0;
+            for (int i = 0; i < 100; i++) {
+                try {
+                    passiveTemplate.getForObject("/1", String.class);
+                } catch (ResourceAccessException e) {
+                    failures++;
+                }
+            }
+
+            assertThat(failures).isEqualTo(1);
+            assertThat(passive.healthStates()).containsExactly(true, true, false);
+        }
+    }
+
+    @Test
+    void instanceEjectedByRefusedConnectionNeedsFullRunOfPassingChecks() throws Exception {
+        properties.setHealthyThreshold(2);
+        properties.setUnhealthyThreshold(2);
+        // проверки вызываются вручную, чтобы считать их точно
+        try (ServerBalancer passive = new ServerBalancer(properties)) {
+            RestTemplate passiveTemplate = restTemplate(passive);
+            healthStatuses.get(2).set(503);
+            passive.checkAll();
+            passive.checkAll();
+            assertThat(passive.healthStates()).containsExactly(true, true, false);
+            healthStatuses.get(2).set(200);
+            passive.checkAll();
+            passive.checkAll();
+            assertThat(passive.healthStates()).containsExactly(true, true, true);
+
+            int port = servers.get(2).getAddress().getPort();
+            servers.get(2).stop(0);
+            for (int i = 0; i < 100 && passive.healthStates().get(2); i++) {
+                try {
+                    passiveTemplate.getForObject("/1", String.class);
+                } catch (ResourceAccessException ignored) {
+                    // отказ в соединении
+                }
+            }
+            assertThat(passive.healthStates()).containsExactly(true, true, false);
+
+            servers.set(2, createServer(2, port, healthStatuses.get(2)));
+            passive.checkAll();
+            assertThat(passive.healthStates()).containsExactly(true, true, false);
+            passive.checkAll();
+            assertThat(passive.healthStates()).containsExactly(true, true, true);
+        }
+    }
+
+    private URI startServer(int number) throws Exception {
+        AtomicInteger health = new AtomicInteger(200);
+        healthStatuses.add(health);
+        HttpServer server = createServer(number, 0, health);
+        servers.add(server);
+        return URI.create("http://127.0.0.1:" + server.getAddress().getPort());
+    }
+
+    private static HttpServer createServer(int number, int port, AtomicInteger health) throws Exception {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+        server.createContext("/actuator/health", exchange -> {
+            exchange.sendResponseHeaders(health.get(), -1);
+            exchange.close();
+        });
+        server.createContext("/", exchange -> {
+            byte[] body = String.valueOf(number).getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+        return server;
+    }
+
+    private Map<String, Integer> send(int requests) {
+        Map<String, Integer> hits = new HashMap<>();
+        for (int i = 0; i < requests; i++) {
+            hits.merge(restTemplate.getForObject("/1", String.class), 1, Integer::sum);
+        }
+        return hits;
+    }
+
+    private String sendAs(String userId, String path) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.add("X-Sharer-User-Id", userId);
+        return restTemplate.exchange(path, HttpMethod.GET, new HttpEntity<>(headers), String.class).getBody();
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("ожидание состояния экземпляров").isLessThan(deadline);
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package ru.practicum.shareit.item;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.client.ExpectedCount;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+import ru.practicum.shareit.client.BulkheadLimits;
+import ru.practicum.shareit.client.DownstreamGuard;
+import ru.practicum.shareit.client.ResilienceProperties;
+import ru.practicum.shareit.item.comment.CommentDto;
+import ru.practicum.shareit.item.dto.ItemDto;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+class ItemClientTest {
+
+    private static final String SERVER = "http://server";
+
+    private MockRestServiceServer server;
+    private ItemClient client;
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        ItemResponseCache cache = new ItemResponseCache(true, 100, Duration.ofMinutes(1), Duration.ofMinutes(1));
+        registry = new SimpleMeterRegistry();
+        cache.bindTo(registry);
+        ResilienceProperties resilience = new ResilienceProperties();
+        client = new ItemClient(SERVER, new RestTemplateBuilder(), new SimpleClientHttpRequestFactory(),
+                resilience, new BulkheadLimits(100, 8, false),
+                new StaticListableBeanFactory().getBeanProvider(DownstreamGuard.class), cache);
+        server = MockRestServiceServer.bindTo((RestTemplate) ReflectionTestUtils.getField(client, "restTemplate"))
+                .build();
+    }
+
+    @Test
+    void repeatedDetailIsServedFromCachePerUser() {
+        server.expect(ExpectedCount.once(), requestTo(SERVER + "/items/1"))
+                .andExpect(header("X-Sharer-User-Id", "1"))
+                .andRespond(withSuccess("{\"id\":1,\"lastBooking\":{}}", MediaType.APPLICATION_JSON));
+        server.expect(ExpectedCount.once(), requestTo(SERVER + "/items/1"))
+                .andExpect(header("X-Sharer-User-Id", "2"))
+                .andRespond(withSuccess("{\"id\":1}", MediaType.APPLICATION_JSON));
+
+        client.getById(1L, 1L);
+        client.getById(1L, 1L);
+        client.getById(2L, 1L);
+        Object forOther = client.getById(2L, 1L).getBody();
+
+        assertThat(new String((byte[]) forOther)).isEqualTo("{\"id\":1}");
+        assertThat(registry.get("cache.gets").tag("cache", "items.detail").tag("result", "hit")
+                .functionCounter().count()).isEqualTo(2);
+        assertThat(registry.get("cache.gets").tag("cache", "items.detail").tag("result", "miss")
+                .functionCounter().count()).isEqualTo(2);
+        server.verify();
+    }
+
+    @Test
+    void patchInvalidatesDetailForAllUsersAndSearch() {
+        server.expect(ExpectedCount.once(), requestTo(SERVER + "/items/1"))
+                .andRespond(withSuccess("{\"name\":\"Дрель\"}", MediaType.APPLICATION_JSON));
+        server.expect(ExpectedCount.once(), requestTo(SERVER + "/items/search?text=drill"))
+                .andRespond(withSuccess("[]", MediaType.APPLICATION_JSON));
+        server.expect(ExpectedCount.once(), requestTo(SERVER + "/items/1"))
+                .andExpect(method(HttpMethod.PATCH))
+                .andRespond(withSuccess("{}", MediaType.APPLICATION_JSON));
+        server.expect(ExpectedCount.once(), requestTo(SERVER + "/items/1"))
+                .andExpect(method(HttpMethod.GET))
+                .andRespond(withSuccess("{\"name\":\"Drill\"}", MediaType.APPLICATION_JSON));
+        server.expect(ExpectedCount.once(), requestTo(SERVER + "/items/search?text=drill"))
+                .andRespond(withSuccess("[{\"id\":1}]", MediaType.APPLICATION_JSON));
+
+        client.getById(2L, 1L);
+        client.search("drill");
+        client.search("drill");
+        client.update(1L, 1L, ItemDto.builder().name("Drill").build());
+
+        assertThat(new String((byte[]) client.getById(2L, 1L).getBody())).isEqualTo("{\"name\":\"Drill\"}");
+        assertThat(new String((byte[]) client.search("drill").getBody())).isEqualTo("[{\"id\":1}]");
+        server.verify();
+    }
+
+    @Test
+    void commentInvalidatesDetailOfThatItemOnly() {
+        server.expect(ExpectedCount.once(), requestTo(SERVER + "/items/1"))
+                .andRespond(withSuccess("{\"comments\":[]}", MediaType.APPLICATION_JSON));
+        server.expect(ExpectedCount.once(), requestTo(SERVER + "/items/2"))
+                .andRespond(withSuccess("{\"comments\":[]}", MediaType.APPLICATION_JSON));
+        server.expect(ExpectedCount.once(), requestTo(SERVER + "/items/1/comment"))
+                .andRespond(withSuccess("{}", MediaType.APPLICATION_JSON));
+        server.expect(ExpectedCount.once(), requestTo(SERVER + "/items/1"))
+                .andRespond(withSuccess("{\"comments\":[{}]}", MediaType.APPLICATION_JSON));
+
+        client.getById(3L, 1L);
+        client.getById(3L, 2L);
+        client.addComment(3L, 1L, CommentDto.builder().text("Отлично").build());
+        client.getById(3L, 1L);
+        client.getById(3L, 2L);
+
+        server.verify();
+    }
+
+    @Test
+    void errorResponsesAreNotCached() {
+        server.expect(ExpectedCount.twice(), requestTo(SERVER + "/items/9"))
+                .andRespond(withStatus(HttpStatus.NOT_FOUND).contentType(MediaType.APPLICATION_JSON).body("{}"));
+
+        assertThat(client.getById(1L, 9L).getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        assertThat(client.getById(1L, 9L).getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        server.verify();
+    }
+}
@@ -10,10 +10,14 @@ import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.util.StreamUtils;
 import ru.practicum.shareit.exceptions.ErrorHandler;
 import ru.practicum.shareit.item.comment.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
@@ -24,6 +28,7 @@ import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(ItemController.class)
@@ -80,6 +85,32 @@ class ItemControllerTest {
         verify(itemClient, never()).create(anyLong(), any(ItemDto.class));
     }
 
+    @Test
+    void bulkImportStreamsBodyToClient() throws Exception {
+        String csv = "name,description,available\nDrill,Cordless drill,true\n";
+        when(itemClient.importItems(eq(1L), eq(MediaType.parseMediaType("text/csv")), any(InputStream.class)))
+                .thenAnswer(invocation -> ResponseEntity.ok(StreamUtils.copyToString(
+                        invocation.<InputStream>getArgument(2), StandardCharsets.UTF_8)));
+
+        mockMvc.perform(post("/items/bulk")
+                        .header(USER_HEADER, "1")
+                        .contentType("text/csv")
+                        .content(csv))
+                .andExpect(status().isOk())
+                .andExpect(content().string(csv));
+    }
+
+    @Test
+    void bulkImportRejectsUnsupportedContentType() throws Exception {
+        mockMvc.perform(post("/items/bulk")
+                        .header(USER_HEADER, "1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().isUnsupportedMediaType());
+
+        verify(itemClient, never()).importItems(anyLong(), any(), any());
+    }
+
     @Test
     void addCommentWithValidBodyCallsClient() throws Exception {
         CommentDto dto = CommentDto.builder()
@@ -0,0 +1,112 @@
+package ru.practicum.shareit.ratelimit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimitFilterTest {
+
+    private final AtomicLong now = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+    private RateLimiter limiter;
+    private RateLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setReads(new RateLimitProperties.Budget(2, 3));
+        properties.setWrites(new RateLimitProperties.Budget(0.5, 1));
+        limiter = new RateLimiter(properties, now::get);
+        filter = new RateLimitFilter(limiter);
+    }
+
+    @Test
+    void readsOverBurstAreRejectedWithRetryAfterUntilRefill() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            assertThat(perform("GET", "/bookings/owner", "1").getStatus()).isEqualTo(200);
+        }
+
+        MockHttpServletResponse rejected = perform("GET", "/bookings/owner", "1");
+        assertThat(rejected.getStatus()).isEqualTo(429);
+        assertThat(rejected.getHeader("Retry-After")).isEqualTo("1");
+        assertThat(rejected.getContentAsString(StandardCharsets.UTF_8)).contains("Слишком много запросов");
+
+        // при 2 запросах в секунду токен появляется через 0,5 с
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+        assertThat(perform("GET", "/bookings/owner", "1").getStatus()).isEqualTo(200);
+        assertThat(perform("GET", "/bookings/owner", "1").getStatus()).isEqualTo(429);
+    }
+
+    @Test
+    void readAndWriteBudgetsAndUsersAreIndependent() throws Exception {
+        assertThat(perform("POST", "/items", "1").getStatus()).isEqualTo(200);
+        MockHttpServletResponse rejected = perform("PATCH", "/items/1", "1");
+        assertThat(rejected.getStatus()).isEqualTo(429);
+        assertThat(rejected.getHeader("Retry-After")).isEqualTo("2");
+
+        assertThat(perform("GET", "/items/1", "1").getStatus()).isEqualTo(200);
+        assertThat(perform("POST", "/items", "2").getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void rejectedRequestDoesNotReachChainAndIsCounted() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        limiter.bindTo(registry);
+        perform("DELETE", "/users/1", null);
+
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletRequest request = new MockHttpServletRequest("DELETE", "/users/1");
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        assertThat(chain.getRequest()).isNull();
+        assertThat(registry.get("gateway.rate-limit.rejected").tag("kind", "write").functionCounter().count())
+                .isEqualTo(1);
+        assertThat(registry.get("gateway.rate-limit.clients").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    void userIdIsNormalizedAndInvalidHeaderFallsBackToAddress() throws Exception {
+        // «1» и « 01 » — один пользователь и одна корзина записи
+        assertThat(perform("POST", "/items", "1").getStatus()).isEqualTo(200);
+        assertThat(perform("POST", "/items", " 01 ").getStatus()).isEqualTo(429);
+
+        // нечисловой и неположительный id не дают новой корзины: считаются по адресу
+        assertThat(perform("POST", "/items", "abc").getStatus()).isEqualTo(200);
+        assertThat(perform("POST", "/items", "-5").getStatus()).isEqualTo(429);
+        assertThat(perform("POST", "/items", null).getStatus()).isEqualTo(429);
+    }
+
+    @Test
+    void nonPositiveRateFailsStartup() {
+        new ApplicationContextRunner()
+                .withUserConfiguration(RateLimitConfig.class)
+                .withPropertyValues("shareit.rate-limit.writes.per-second=0")
+                .run(context -> assertThat(context).hasFailed());
+    }
+
+    @Test
+    void actuatorIsNotLimited() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            assertThat(perform("GET", "/actuator/health", null).getStatus()).isEqualTo(200);
+        }
+    }
+
+    private MockHttpServletResponse perform(String method, String uri, String userId) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        if (userId != null) {
+            request.addHeader("X-Sharer-User-Id", userId);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+}
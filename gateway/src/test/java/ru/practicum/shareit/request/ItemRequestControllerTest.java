@@ -13,6 +13,7 @@ import ru.practicum.shareit.exceptions.ErrorHandler;
 import ru.practicum.shareit.request.dto.ItemRequestCreateDto;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.never;
@@ -82,13 +83,36 @@ class ItemRequestControllerTest {
 
     @Test
     void getAllRequestsCallsClient() throws Exception {
-        when(itemRequestClient.getAll(5L)).thenReturn(ResponseEntity.ok().build());
+        when(itemRequestClient.getAll(5L, 0, 10, null)).thenReturn(ResponseEntity.ok().build());
 
         mockMvc.perform(get("/requests/all")
                         .header(USER_HEADER, "5"))
                 .andExpect(status().isOk());
 
-        verify(itemRequestClient).getAll(5L);
+        verify(itemRequestClient).getAll(5L, 0, 10, null);
+    }
+
+    @Test
+    void getAllRequestsForwardsCursorAndPageSize() throws Exception {
+        when(itemRequestClient.getAll(5L, 0, 20, "abc")).thenReturn(ResponseEntity.ok().build());
+
+        mockMvc.perform(get("/requests/all")
+                        .header(USER_HEADER, "5")
+                        .param("size", "20")
+                        .param("cursor", "abc"))
+                .andExpect(status().isOk());
+
+        verify(itemRequestClient).getAll(5L, 0, 20, "abc");
+    }
+
+    @Test
+    void getAllRequestsRejectsNonPositiveSize() throws Exception {
+        mockMvc.perform(get("/requests/all")
+                        .header(USER_HEADER, "5")
+                        .param("size", "0"))
+                .andExpect(status().isBadRequest());
+
+        verify(itemRequestClient, never()).getAll(anyLong(), anyInt(), anyInt(), any());
     }
 
 
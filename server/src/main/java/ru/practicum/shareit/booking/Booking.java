@@ -16,7 +16,8 @@ import java.time.LocalDateTime;
 @Table(name = "bookings")
 public class Booking {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bookings_seq")
+    @SequenceGenerator(name = "bookings_seq", sequenceName = "bookings_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "start_date", nullable = false,
@@ -38,4 +39,15 @@ public class Booking {
     @Enumerated(EnumType.STRING)
     @Column(nullable = false, length = 16)
     private BookingStatus status;
+
+    // копия item.owner.id для запросов владельца; в PostgreSQL синхронизируется триггерами (PostgresSchemaExtensions)
+    @Column(name = "owner_id", nullable = false)
+    private Long ownerId;
+
+    @PrePersist
+    void fillOwnerId() {
+        if (ownerId == null && item != null) {
+            ownerId = item.getOwner().getId();
+        }
+    }
 }
@@ -0,0 +1,253 @@
+package ru.practicum.shareit.booking;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.exceptions.ConflictException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Кэш занятых интервалов (WAITING и APPROVED) по каждой вещи.
+ * Для проверки нового интервала просматриваются только интервалы, начинающиеся не раньше, чем за длину
+ * самого длинного интервала вещи до его начала: O(log n + k). Проверка верна и тогда, когда интервалы из БД
+ * пересекаются между собой (без ограничения ex_bookings_item_period).
+ * Расписание вещи строится из таблицы bookings при первом обращении и перечитывается на месте не реже, чем раз
+ * в refresh-interval: так до него доходят бронирования, созданные другими экземплярами. Перед отказом
+ * из-за пересечения расписание перечитывается сразу: бронирование могли отклонить или отменить на другом экземпляре.
+ * Блокировки вещей и бронирования с незавершённой транзакцией хранятся вне кэша, поэтому вытеснение
+ * расписания не открывает окно для пересечений.
+ * Кэш защищает от пересечений в пределах одного экземпляра сервера; общую гарантию в PostgreSQL
+ * даёт ограничение ex_bookings_item_period (см. PostgresSchemaExtensions).
+ */
+@Component
+public class BookingAvailabilityIndex {
+
+    private static final EnumSet<BookingStatus> ACTIVE = EnumSet.of(BookingStatus.WAITING, BookingStatus.APPROVED);
+    private static final int LOCK_STRIPES = 1024;
+
+    private final BookingRepository bookingRepository;
+    private final boolean enabled;
+    private final long refreshNanos;
+    private final Cache<Long, ItemSchedule> schedules;
+    // вещь всегда попадает на одну и ту же блокировку, сколько бы раз её расписание ни вытеснялось
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+    // бронирования этого экземпляра с незавершённой транзакцией: в БД их ещё не видно.
+    // Внутренние карты меняются только под блокировкой вещи
+    private final Map<Long, Map<Long, Interval>> pending = new ConcurrentHashMap<>();
+
+    public BookingAvailabilityIndex(BookingRepository bookingRepository,
+                                    @Value("${shareit.bookings.overlap-check.enabled:true}") boolean enabled,
+                                    @Value("${shareit.bookings.overlap-check.max-items:100000}") long maxItems,
+                                    @Value("${shareit.bookings.overlap-check.refresh-interval:PT30S}")
+                                    Duration refreshInterval) {
+        this.bookingRepository = bookingRepository;
+        this.enabled = enabled;
+        this.refreshNanos = refreshInterval.toNanos();
+        // расписание, к которому не обращались дольше refresh-interval, всё равно пришлось бы перечитать
+        this.schedules = Caffeine.newBuilder()
+                .maximumSize(maxItems)
+                .expireAfterAccess(refreshInterval)
+                .build();
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Проверяет, что интервал свободен, и под блокировкой вещи сохраняет бронирование.
+     * Если транзакция затем откатится, интервал будет освобождён.
+     */
+    public Booking reserve(Long itemId, LocalDateTime start, LocalDateTime end, Supplier<Booking> save) {
+        if (!enabled) {
+            return save.get();
+        }
+        ReentrantLock lock = lock(itemId);
+        lock.lock();
+        try {
+            ItemSchedule schedule = schedule(itemId);
+            if (schedule.overlaps(start, end)) {
+                reload(itemId, schedule);
+                if (schedule.overlaps(start, end)) {
+                    throw new ConflictException("Вещь уже забронирована на это время: " + itemId);
+                }
+            }
+            Booking saved = save.get();
+            Interval interval = new Interval(start, end, saved.getId());
+            schedule.add(interval);
+            pending.computeIfAbsent(itemId, id -> new HashMap<>()).put(saved.getId(), interval);
+            onCompletion(committed -> complete(itemId, saved.getId(), committed));
+            return saved;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Освобождает интервал отклонённого или отменённого бронирования после фиксации транзакции.
+     */
+    public void release(Booking booking) {
+        if (!enabled) {
+            return;
+        }
+        Long itemId = booking.getItem().getId();
+        Long bookingId = booking.getId();
+        Runnable release = () -> withLock(itemId, () -> {
+            ItemSchedule schedule = schedules.getIfPresent(itemId);
+            if (schedule != null) {
+                schedule.remove(bookingId);
+            }
+        });
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    release.run();
+                }
+            });
+        } else {
+            release.run();
+        }
+    }
+
+    // вытесняет расписание вещи так же, как это сделал бы кэш по размеру или времени
+    void evict(Long itemId) {
+        schedules.invalidate(itemId);
+    }
+
+    // вызывается под блокировкой вещи. Расписание читается из БД вне Caffeine.get(key, loader): загрузчик
+    // выполняется под монитором ConcurrentHashMap и на время JDBC-запроса закрепил бы виртуальный поток
+    // за потоком-носителем
+    private ItemSchedule schedule(Long itemId) {
+        ItemSchedule schedule = schedules.getIfPresent(itemId);
+        if (schedule == null) {
+            schedule = new ItemSchedule();
+            reload(itemId, schedule);
+            schedules.put(itemId, schedule);
+        } else if (System.nanoTime() - schedule.loadedAt > refreshNanos) {
+            reload(itemId, schedule);
+        }
+        return schedule;
+    }
+
+    private void reload(Long itemId, ItemSchedule schedule) {
+        List<Interval> current = bookingRepository.findAllByItemIdAndStatusIn(itemId, ACTIVE).stream()
+                .map(booking -> new Interval(booking.getStart(), booking.getEnd(), booking.getId()))
+                .toList();
+        schedule.reload(current, pending.getOrDefault(itemId, Map.of()).values());
+    }
+
+    private void complete(Long itemId, Long bookingId, boolean committed) {
+        withLock(itemId, () -> {
+            Map<Long, Interval> itemPending = pending.get(itemId);
+            if (itemPending != null) {
+                itemPending.remove(bookingId);
+                if (itemPending.isEmpty()) {
+                    pending.remove(itemId);
+                }
+            }
+            if (!committed) {
+                ItemSchedule schedule = schedules.getIfPresent(itemId);
+                if (schedule != null) {
+                    schedule.remove(bookingId);
+                }
+            }
+        });
+    }
+
+    private ReentrantLock lock(Long itemId) {
+        return locks[Math.floorMod(itemId.hashCode(), LOCK_STRIPES)];
+    }
+
+    private void withLock(Long itemId, Runnable action) {
+        ReentrantLock lock = lock(itemId);
+        lock.lock();
+        try {
+            action.run();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static void onCompletion(Consumer<Boolean> action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.accept(true);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                action.accept(status == STATUS_COMMITTED);
+            }
+        });
+    }
+
+    // все методы вызываются под блокировкой вещи
+    private static final class ItemSchedule {
+        private final NavigableSet<Interval> intervals = new TreeSet<>(Interval.ORDER);
+        private final Map<Long, Interval> byBooking = new HashMap<>();
+        // верхняя граница длины интервалов: после удаления не уменьшается до следующего перечитывания
+        private Duration longest = Duration.ZERO;
+        private long loadedAt;
+
+        // интервалы полуоткрытые: бронирование, начинающееся ровно в момент окончания другого, не пересекается с ним
+        boolean overlaps(LocalDateTime start, LocalDateTime end) {
+            LocalDateTime earliest = start.minus(longest);
+            Interval from = new Interval(earliest, earliest, Long.MIN_VALUE);
+            Interval to = new Interval(end, end, Long.MIN_VALUE);
+            for (Interval interval : intervals.subSet(from, true, to, false)) {
+                if (interval.end().isAfter(start)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void add(Interval interval) {
+            intervals.add(interval);
+            byBooking.put(interval.bookingId(), interval);
+            Duration length = Duration.between(interval.start(), interval.end());
+            if (length.compareTo(longest) > 0) {
+                longest = length;
+            }
+        }
+
+        void remove(Long bookingId) {
+            Interval interval = byBooking.remove(bookingId);
+            if (interval != null) {
+                intervals.remove(interval);
+            }
+        }
+
+        // интервалы из БД вместо прежних; незавершённые бронирования этого экземпляра остаются
+        void reload(List<Interval> current, Collection<Interval> uncommitted) {
+            intervals.clear();
+            byBooking.clear();
+            longest = Duration.ZERO;
+            current.forEach(this::add);
+            uncommitted.forEach(this::add);
+            loadedAt = System.nanoTime();
+        }
+    }
+
+    private record Interval(LocalDateTime start, LocalDateTime end, Long bookingId) {
+        static final Comparator<Interval> ORDER = Comparator.comparing(Interval::start)
+                .thenComparing(Interval::bookingId);
+    }
+}
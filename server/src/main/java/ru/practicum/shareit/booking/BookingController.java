@@ -1,11 +1,21 @@
 package ru.practicum.shareit.booking;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.booking.dto.BookingBulkApprovalDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
 import ru.practicum.shareit.booking.dto.BookingState;
+import ru.practicum.shareit.pagination.KeysetCursor;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 @RestController
@@ -13,7 +23,10 @@ import java.util.List;
 @RequestMapping("/bookings")
 public class BookingController {
 
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
     private final BookingService service;
+    private final ObjectMapper objectMapper;
 
     @PostMapping
     public BookingResponseDto create(@RequestHeader("X-Sharer-User-Id") Long userId,
@@ -28,6 +41,12 @@ public class BookingController {
         return service.approve(userId, bookingId, approved);
     }
 
+    @PatchMapping("/bulk")
+    public List<BookingDecisionDto> approveAll(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                               @RequestBody BookingBulkApprovalDto dto) {
+        return service.approveAll(userId, dto);
+    }
+
     @GetMapping("/{bookingId}")
     public BookingResponseDto getById(@RequestHeader("X-Sharer-User-Id") Long userId,
                                       @PathVariable Long bookingId) {
@@ -35,14 +54,60 @@ public class BookingController {
     }
 
     @GetMapping
-    public List<BookingResponseDto> getForBooker(@RequestHeader("X-Sharer-User-Id") Long userId,
-                                                 @RequestParam(defaultValue = "ALL") BookingState state) {
-        return service.getForBooker(userId, state);
+    public ResponseEntity<List<BookingResponseDto>> getForBooker(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                                                 @RequestParam(defaultValue = "ALL") BookingState state,
+                                                                 @RequestParam(defaultValue = "0") int from,
+                                                                 @RequestParam(defaultValue = "10") int size,
+                                                                 @RequestParam(required = false) String cursor) {
+        return withNextCursor(service.getForBooker(userId, state, from, size, cursor), size);
     }
 
     @GetMapping("/owner")
-    public List<BookingResponseDto> getForOwner(@RequestHeader("X-Sharer-User-Id") Long userId,
-                                                @RequestParam(defaultValue = "ALL") BookingState state) {
-        return service.getForOwner(userId, state);
+    public ResponseEntity<List<BookingResponseDto>> getForOwner(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                                                @RequestParam(defaultValue = "ALL") BookingState state,
+                                                                @RequestParam(defaultValue = "0") int from,
+                                                                @RequestParam(defaultValue = "10") int size,
+                                                                @RequestParam(required = false) String cursor) {
+        return withNextCursor(service.getForOwner(userId, state, from, size, cursor), size);
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportForBooker(@RequestHeader("X-Sharer-User-Id") Long userId) {
+        return ndjson(service.exportForBooker(userId));
+    }
+
+    @GetMapping("/owner/export")
+    public ResponseEntity<StreamingResponseBody> exportForOwner(@RequestHeader("X-Sharer-User-Id") Long userId) {
+        return ndjson(service.exportForOwner(userId));
+    }
+
+    // одно бронирование на строку; в памяти держится только текущая запись и буфер ответа
+    private ResponseEntity<StreamingResponseBody> ndjson(BookingExport export) {
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = objectMapper.createGenerator(out)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                // строки разделяет '\n', пробел между корневыми значениями Jackson не нужен
+                generator.setRootValueSeparator(null);
+                export.forEach(booking -> {
+                    try {
+                        generator.writeObject(booking);
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+
+    private ResponseEntity<List<BookingResponseDto>> withNextCursor(List<BookingResponseDto> bookings, int size) {
+        if (bookings.size() < size) {
+            return ResponseEntity.ok(bookings);
+        }
+        BookingResponseDto last = bookings.get(bookings.size() - 1);
+        return ResponseEntity.ok()
+                .header(KeysetCursor.HEADER, new KeysetCursor(last.getStart(), last.getId()).encode())
+                .body(bookings);
     }
 }
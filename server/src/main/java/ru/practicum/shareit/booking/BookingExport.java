@@ -0,0 +1,14 @@
+package ru.practicum.shareit.booking;
+
+import ru.practicum.shareit.booking.dto.BookingResponseDto;
+
+import java.util.function.Consumer;
+
+/**
+ * Отложенная выгрузка бронирований: проверки уже выполнены, строки читаются из БД
+ * курсором только при вызове {@link #forEach(Consumer)} и отдаются по одной.
+ */
+@FunctionalInterface
+public interface BookingExport {
+    void forEach(Consumer<BookingResponseDto> action);
+}
@@ -1,62 +1,215 @@
 package ru.practicum.shareit.booking;
 
-import org.springframework.data.domain.Sort;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import ru.practicum.shareit.booking.dto.ItemBookingView;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface BookingRepository extends JpaRepository<Booking, Long> {
 
+    // item подгружается тем же запросом: BookingMapper читает его имя для каждого элемента списка
+    String SELECT_WITH_ITEM = "select booking from Booking booking join fetch booking.item item ";
+
+    // страница после курсора в порядке (start DESC, id DESC); первая страница читается отдельным запросом
+    // без этого условия, а «start <= курсор» даёт планировщику границу диапазона по индексу (…, start_date DESC)
+    String AFTER_CURSOR = " and booking.start <= :cursorStart"
+            + " and (booking.start < :cursorStart or booking.id < :cursorId)";
+
+    @EntityGraph(attributePaths = "item")
+    Optional<Booking> findWithItemById(Long id);
+
+    List<Booking> findAllByItemIdAndStatusIn(Long itemId, Collection<BookingStatus> statuses);
+
+    // для пакетного подтверждения: строки блокируются до конца транзакции, чтобы итог по каждому id был точным
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<Booking> findAllByIdIn(Collection<Long> ids);
+
+    @Modifying(clearAutomatically = true)
+    @Query("update Booking booking set booking.status = :status "
+            + "where booking.id in :ids and booking.ownerId = :ownerId "
+            + "and booking.status = ru.practicum.shareit.booking.BookingStatus.WAITING")
+    int decideWaiting(@Param("ids") Collection<Long> ids,
+                      @Param("ownerId") Long ownerId,
+                      @Param("status") BookingStatus status);
+
     // для booker
-    List<Booking> findAllByBookerId(Long bookerId, Sort sort);
+    @Query(SELECT_WITH_ITEM + "where booking.booker.id = :bookerId")
+    List<Booking> findAllForBooker(@Param("bookerId") Long bookerId,
+                                   Pageable pageable);
+
+    @Query(SELECT_WITH_ITEM + "where booking.booker.id = :bookerId" + AFTER_CURSOR)
+    List<Booking> findAllForBookerAfter(@Param("bookerId") Long bookerId,
+                                        @Param("cursorStart") LocalDateTime cursorStart,
+                                        @Param("cursorId") Long cursorId,
+                                        Pageable pageable);
+
+    @Query(SELECT_WITH_ITEM + "where booking.booker.id = :bookerId and booking.end < :now")
+    List<Booking> findPastForBooker(@Param("bookerId") Long bookerId,
+                                    @Param("now") LocalDateTime now,
+                                    Pageable pageable);
 
-    List<Booking> findByBookerIdAndEndIsBefore(Long bookerId, LocalDateTime end, Sort sort);
+    @Query(SELECT_WITH_ITEM + "where booking.booker.id = :bookerId and booking.end < :now"
+            + AFTER_CURSOR)
+    List<Booking> findPastForBookerAfter(@Param("bookerId") Long bookerId,
+                                         @Param("now") LocalDateTime now,
+                                         @Param("cursorStart") LocalDateTime cursorStart,
+                                         @Param("cursorId") Long cursorId,
+                                         Pageable pageable);
+
+    @Query(SELECT_WITH_ITEM + "where booking.booker.id = :bookerId and booking.start > :now")
+    List<Booking> findFutureForBooker(@Param("bookerId") Long bookerId,
+                                      @Param("now") LocalDateTime now,
+                                      Pageable pageable);
 
-    List<Booking> findByBookerIdAndStartIsAfter(Long bookerId, LocalDateTime start, Sort sort);
+    @Query(SELECT_WITH_ITEM + "where booking.booker.id = :bookerId and booking.start > :now"
+            + AFTER_CURSOR)
+    List<Booking> findFutureForBookerAfter(@Param("bookerId") Long bookerId,
+                                           @Param("now") LocalDateTime now,
+                                           @Param("cursorStart") LocalDateTime cursorStart,
+                                           @Param("cursorId") Long cursorId,
+                                           Pageable pageable);
 
-    @Query("select booking from Booking booking " +
+    @Query(SELECT_WITH_ITEM +
             "where booking.booker.id = :bookerId " +
             "and booking.start <= :now and booking.end >= :now")
     List<Booking> findCurrentForBooker(@Param("bookerId") Long bookerId,
                                        @Param("now") LocalDateTime now,
-                                       Sort sort);
+                                       Pageable pageable);
 
-    List<Booking> findByBookerIdAndStatus(Long bookerId, BookingStatus status, Sort sort);
+    @Query(SELECT_WITH_ITEM +
+            "where booking.booker.id = :bookerId " +
+            "and booking.start <= :now and booking.end >= :now" + AFTER_CURSOR)
+    List<Booking> findCurrentForBookerAfter(@Param("bookerId") Long bookerId,
+                                            @Param("now") LocalDateTime now,
+                                            @Param("cursorStart") LocalDateTime cursorStart,
+                                            @Param("cursorId") Long cursorId,
+                                            Pageable pageable);
+
+    @Query(SELECT_WITH_ITEM + "where booking.booker.id = :bookerId and booking.status = :status")
+    List<Booking> findByBookerAndStatus(@Param("bookerId") Long bookerId,
+                                        @Param("status") BookingStatus status,
+                                        Pageable pageable);
+
+    @Query(SELECT_WITH_ITEM + "where booking.booker.id = :bookerId and booking.status = :status"
+            + AFTER_CURSOR)
+    List<Booking> findByBookerAndStatusAfter(@Param("bookerId") Long bookerId,
+                                             @Param("status") BookingStatus status,
+                                             @Param("cursorStart") LocalDateTime cursorStart,
+                                             @Param("cursorId") Long cursorId,
+                                             Pageable pageable);
 
-    // для owner
-    @Query("select booking from Booking booking where booking.item.owner.id = :ownerId")
-    List<Booking> findAllForOwner(@Param("ownerId") Long ownerId, Sort sort);
+    // для owner: владелец вещи продублирован в bookings.owner_id, чтобы не соединять с items для фильтра
+    @Query(SELECT_WITH_ITEM + "where booking.ownerId = :ownerId")
+    List<Booking> findAllForOwner(@Param("ownerId") Long ownerId,
+                                  Pageable pageable);
 
-    @Query("select booking from Booking booking where booking.item.owner.id = :ownerId and booking.end < :now")
+    @Query(SELECT_WITH_ITEM + "where booking.ownerId = :ownerId" + AFTER_CURSOR)
+    List<Booking> findAllForOwnerAfter(@Param("ownerId") Long ownerId,
+                                       @Param("cursorStart") LocalDateTime cursorStart,
+                                       @Param("cursorId") Long cursorId,
+                                       Pageable pageable);
+
+    @Query(SELECT_WITH_ITEM + "where booking.ownerId = :ownerId and booking.end < :now")
     List<Booking> findPastForOwner(@Param("ownerId") Long ownerId,
                                    @Param("now") LocalDateTime now,
-                                   Sort sort);
+                                   Pageable pageable);
+
+    @Query(SELECT_WITH_ITEM + "where booking.ownerId = :ownerId and booking.end < :now"
+            + AFTER_CURSOR)
+    List<Booking> findPastForOwnerAfter(@Param("ownerId") Long ownerId,
+                                        @Param("now") LocalDateTime now,
+                                        @Param("cursorStart") LocalDateTime cursorStart,
+                                        @Param("cursorId") Long cursorId,
+                                        Pageable pageable);
 
-    @Query("select booking from Booking booking where booking.item.owner.id = :ownerId and booking.start > :now")
+    @Query(SELECT_WITH_ITEM + "where booking.ownerId = :ownerId and booking.start > :now")
     List<Booking> findFutureForOwner(@Param("ownerId") Long ownerId,
                                      @Param("now") LocalDateTime now,
-                                     Sort sort);
+                                     Pageable pageable);
 
-    @Query("select booking from Booking booking where booking.item.owner.id = :ownerId and booking.start <= :now and booking.end >= :now")
+    @Query(SELECT_WITH_ITEM + "where booking.ownerId = :ownerId and booking.start > :now"
+            + AFTER_CURSOR)
+    List<Booking> findFutureForOwnerAfter(@Param("ownerId") Long ownerId,
+                                          @Param("now") LocalDateTime now,
+                                          @Param("cursorStart") LocalDateTime cursorStart,
+                                          @Param("cursorId") Long cursorId,
+                                          Pageable pageable);
+
+    @Query(SELECT_WITH_ITEM + "where booking.ownerId = :ownerId "
+            + "and booking.start <= :now and booking.end >= :now")
     List<Booking> findCurrentForOwner(@Param("ownerId") Long ownerId,
                                       @Param("now") LocalDateTime now,
-                                      Sort sort);
+                                      Pageable pageable);
+
+    @Query(SELECT_WITH_ITEM + "where booking.ownerId = :ownerId "
+            + "and booking.start <= :now and booking.end >= :now" + AFTER_CURSOR)
+    List<Booking> findCurrentForOwnerAfter(@Param("ownerId") Long ownerId,
+                                           @Param("now") LocalDateTime now,
+                                           @Param("cursorStart") LocalDateTime cursorStart,
+                                           @Param("cursorId") Long cursorId,
+                                           Pageable pageable);
 
-    @Query("select booking from Booking booking where booking.item.owner.id = :ownerId and booking.status = :status")
+    @Query(SELECT_WITH_ITEM + "where booking.ownerId = :ownerId and booking.status = :status")
     List<Booking> findByOwnerAndStatus(@Param("ownerId") Long ownerId,
                                        @Param("status") BookingStatus status,
-                                       Sort sort);
+                                       Pageable pageable);
+
+    @Query(SELECT_WITH_ITEM + "where booking.ownerId = :ownerId and booking.status = :status"
+            + AFTER_CURSOR)
+    List<Booking> findByOwnerAndStatusAfter(@Param("ownerId") Long ownerId,
+                                            @Param("status") BookingStatus status,
+                                            @Param("cursorStart") LocalDateTime cursorStart,
+                                            @Param("cursorId") Long cursorId,
+                                            Pageable pageable);
+
+    // выгрузка всей истории: строки читаются курсором JDBC порциями по fetch size, а не списком целиком
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(SELECT_WITH_ITEM + "where booking.booker.id = :bookerId order by booking.start desc, booking.id desc")
+    Stream<Booking> streamAllForBooker(@Param("bookerId") Long bookerId);
 
-    @Query("select booking from Booking booking " +
-            "where booking.item.id = :itemId and booking.start <= current_timestamp " +
-            "order by booking.end desc")
-    List<Booking> findLastBooking(@Param("itemId") Long itemId);
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(SELECT_WITH_ITEM + "where booking.ownerId = :ownerId order by booking.start desc, booking.id desc")
+    Stream<Booking> streamAllForOwner(@Param("ownerId") Long ownerId);
 
-    @Query("select booking from Booking booking " +
-            "where booking.item.id = :itemId and booking.start > current_timestamp " +
-            "order by booking.start asc")
-    List<Booking> findNextBooking(@Param("itemId") Long itemId);
+    // последнее и ближайшее бронирование сразу для набора вещей: по одной строке каждого вида на вещь
+    @Query(value = """
+            SELECT ranked.id AS "id",
+                   ranked.item_id AS "itemId",
+                   ranked.booker_id AS "bookerId",
+                   ranked.start_date AS "startDate",
+                   ranked.end_date AS "endDate",
+                   ranked.past AS "past"
+            FROM (SELECT b.id, b.item_id, b.booker_id, b.start_date, b.end_date,
+                         b.start_date <= :now AS past,
+                         ROW_NUMBER() OVER (
+                             PARTITION BY b.item_id, b.start_date <= :now
+                             ORDER BY CASE WHEN b.start_date <= :now THEN b.end_date END DESC,
+                                      b.start_date ASC,
+                                      b.id ASC) AS rn
+                  FROM bookings b
+                  WHERE b.item_id IN (:itemIds)) ranked
+            WHERE ranked.rn = 1
+            """, nativeQuery = true)
+    List<ItemBookingView> findLastAndNextBookings(@Param("itemIds") Collection<Long> itemIds,
+                                                  @Param("now") LocalDateTime now);
 }
@@ -1,5 +1,7 @@
 package ru.practicum.shareit.booking;
 
+import ru.practicum.shareit.booking.dto.BookingBulkApprovalDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
 import ru.practicum.shareit.booking.dto.BookingState;
@@ -11,9 +13,15 @@ public interface BookingService {
 
     BookingResponseDto approve(Long ownerId, Long bookingId, boolean approved);
 
+    List<BookingDecisionDto> approveAll(Long ownerId, BookingBulkApprovalDto dto);
+
     BookingResponseDto getById(Long requesterId, Long bookingId);
 
-    List<BookingResponseDto> getForBooker(Long bookerId, BookingState state);
+    List<BookingResponseDto> getForBooker(Long bookerId, BookingState state, int from, int size, String cursor);
+
+    List<BookingResponseDto> getForOwner(Long ownerId, BookingState state, int from, int size, String cursor);
+
+    BookingExport exportForBooker(Long bookerId);
 
-    List<BookingResponseDto> getForOwner(Long ownerId, BookingState state);
+    BookingExport exportForOwner(Long ownerId);
 }
@@ -1,35 +1,70 @@
 package ru.practicum.shareit.booking;
 
-import lombok.RequiredArgsConstructor;
+import jakarta.persistence.EntityManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.dto.BookingBulkApprovalDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
 import ru.practicum.shareit.booking.dto.BookingState;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
 import ru.practicum.shareit.exceptions.ConflictException;
+import ru.practicum.shareit.exceptions.ConstraintViolations;
 import ru.practicum.shareit.exceptions.ForbiddenException;
 import ru.practicum.shareit.exceptions.NotFoundException;
 import ru.practicum.shareit.exceptions.ValidationException;
 import ru.practicum.shareit.item.ItemService;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.pagination.KeysetCursor;
+import ru.practicum.shareit.pagination.Paging;
 import ru.practicum.shareit.user.UserService;
 import ru.practicum.shareit.user.User;
 
 import java.time.LocalDateTime;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
-@RequiredArgsConstructor
 @Transactional(readOnly = true)
 public class BookingServiceImpl implements BookingService {
 
     private final BookingRepository bookingRepository;
     private final UserService userService;
     private final ItemService itemService;
+    private final BookingAvailabilityIndex availabilityIndex;
+    private final TransactionTemplate readOnlyTransaction;
+    private final EntityManager entityManager;
 
-    private static final Sort SORT_DESC = Sort.by(Sort.Direction.DESC, "start");
+    private static final Sort SORT_DESC = Sort.by(Sort.Direction.DESC, "start", "id");
+    private static final String EXCLUSION_CONSTRAINT = "ex_bookings_item_period";
+    private static final String EXCLUSION_VIOLATION = "23P01";
+
+    public BookingServiceImpl(BookingRepository bookingRepository,
+                              UserService userService,
+                              ItemService itemService,
+                              BookingAvailabilityIndex availabilityIndex,
+                              PlatformTransactionManager transactionManager,
+                              EntityManager entityManager) {
+        this.bookingRepository = bookingRepository;
+        this.userService = userService;
+        this.itemService = itemService;
+        this.availabilityIndex = availabilityIndex;
+        // выгрузка только читает: readOnly отправляет её на реплику и отключает сброс контекста перед фиксацией
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.entityManager = entityManager;
+    }
 
     @Override
     @Transactional
@@ -51,13 +86,25 @@ public class BookingServiceImpl implements BookingService {
         Booking entity = BookingMapper.toEntity(dto, booker, item);
         entity.setStatus(BookingStatus.WAITING);
 
-        return BookingMapper.toResponseDto(bookingRepository.save(entity));
+        Booking saved = availabilityIndex.reserve(item.getId(), entity.getStart(), entity.getEnd(), () -> {
+            try {
+                return bookingRepository.saveAndFlush(entity);
+            } catch (DataIntegrityViolationException e) {
+                // в PostgreSQL пересечение ловит ограничение ex_bookings_item_period (SQLState 23P01);
+                // остальные нарушения целостности к занятости вещи отношения не имеют
+                if (ConstraintViolations.violates(e, EXCLUSION_CONSTRAINT, EXCLUSION_VIOLATION)) {
+                    throw new ConflictException("Вещь уже забронирована на это время: " + item.getId());
+                }
+                throw e;
+            }
+        });
+        return BookingMapper.toResponseDto(saved);
     }
 
     @Override
     @Transactional
     public BookingResponseDto approve(Long ownerId, Long bookingId, boolean approved) {
-        Booking booking = bookingRepository.findById(bookingId)
+        Booking booking = bookingRepository.findWithItemById(bookingId)
                 .orElseThrow(() -> new NotFoundException("Бронирование не найдено: " + bookingId));
 
         if (!booking.getItem().getOwner().getId().equals(ownerId)) {
@@ -69,12 +116,56 @@ public class BookingServiceImpl implements BookingService {
         }
 
         booking.setStatus(approved ? BookingStatus.APPROVED : BookingStatus.REJECTED);
+        if (!approved) {
+            availabilityIndex.release(booking);
+        }
         return BookingMapper.toResponseDto(bookingRepository.save(booking));
     }
 
+    @Override
+    @Transactional
+    public List<BookingDecisionDto> approveAll(Long ownerId, BookingBulkApprovalDto dto) {
+        if (dto.getBookingIds() == null || dto.getBookingIds().isEmpty() || dto.getApproved() == null) {
+            throw new ValidationException("Нужно передать список bookingIds и решение approved");
+        }
+        Set<Long> ids = new LinkedHashSet<>(dto.getBookingIds());
+        BookingStatus decided = dto.getApproved() ? BookingStatus.APPROVED : BookingStatus.REJECTED;
+
+        Map<Long, Booking> found = bookingRepository.findAllByIdIn(ids).stream()
+                .collect(Collectors.toMap(Booking::getId, Function.identity()));
+        List<Booking> toDecide = found.values().stream()
+                .filter(booking -> booking.getOwnerId().equals(ownerId))
+                .filter(booking -> booking.getStatus() == BookingStatus.WAITING)
+                .toList();
+        if (!toDecide.isEmpty()) {
+            bookingRepository.decideWaiting(toDecide.stream().map(Booking::getId).toList(), ownerId, decided);
+            if (decided == BookingStatus.REJECTED) {
+                toDecide.forEach(availabilityIndex::release);
+            }
+        }
+
+        return ids.stream()
+                .map(id -> decision(id, found.get(id), ownerId, decided))
+                .toList();
+    }
+
+    private static BookingDecisionDto decision(Long id, Booking booking, Long ownerId, BookingStatus decided) {
+        BookingDecisionDto.BookingDecisionDtoBuilder result = BookingDecisionDto.builder().bookingId(id);
+        if (booking == null) {
+            return result.outcome(BookingDecisionDto.Outcome.NOT_FOUND).build();
+        }
+        if (!booking.getOwnerId().equals(ownerId)) {
+            return result.outcome(BookingDecisionDto.Outcome.NOT_OWNER).build();
+        }
+        if (booking.getStatus() != BookingStatus.WAITING) {
+            return result.outcome(BookingDecisionDto.Outcome.NOT_WAITING).status(booking.getStatus()).build();
+        }
+        return result.outcome(BookingDecisionDto.Outcome.UPDATED).status(decided).build();
+    }
+
     @Override
     public BookingResponseDto getById(Long requesterId, Long bookingId) {
-        Booking booking = bookingRepository.findById(bookingId)
+        Booking booking = bookingRepository.findWithItemById(bookingId)
                 .orElseThrow(() -> new NotFoundException("Бронирование не найдено: " + bookingId));
 
         Long ownerId = booking.getItem().getOwner().getId();
@@ -87,34 +178,112 @@ public class BookingServiceImpl implements BookingService {
     }
 
     @Override
-    public List<BookingResponseDto> getForBooker(Long bookerId, BookingState state) {
-        userService.getEntityOrThrow(bookerId);
+    public List<BookingResponseDto> getForBooker(Long bookerId, BookingState state, int from, int size, String cursor) {
+        userService.checkExists(bookerId);
         LocalDateTime now = LocalDateTime.now();
-        List<Booking> bookings = switch (state) {
-            case ALL -> bookingRepository.findAllByBookerId(bookerId, SORT_DESC);
-            case CURRENT -> bookingRepository.findCurrentForBooker(bookerId, now, SORT_DESC);
-            case PAST -> bookingRepository.findByBookerIdAndEndIsBefore(bookerId, now, SORT_DESC);
-            case FUTURE -> bookingRepository.findByBookerIdAndStartIsAfter(bookerId, now, SORT_DESC);
-            case WAITING -> bookingRepository.findByBookerIdAndStatus(bookerId, BookingStatus.WAITING, SORT_DESC);
-            case REJECTED -> bookingRepository.findByBookerIdAndStatus(bookerId, BookingStatus.REJECTED, SORT_DESC);
-            case CANCELED -> bookingRepository.findByBookerIdAndStatus(bookerId, BookingStatus.CANCELED, SORT_DESC);
-        };
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        List<Booking> bookings = after == null
+                ? firstPageForBooker(bookerId, state, now, Paging.of(from, size, SORT_DESC))
+                : pageAfterForBooker(bookerId, state, now, after, Paging.first(size, SORT_DESC));
         return bookings.stream().map(BookingMapper::toResponseDto).toList();
     }
 
     @Override
-    public List<BookingResponseDto> getForOwner(Long ownerId, BookingState state) {
-        userService.getEntityOrThrow(ownerId);
+    public List<BookingResponseDto> getForOwner(Long ownerId, BookingState state, int from, int size, String cursor) {
+        userService.checkExists(ownerId);
         LocalDateTime now = LocalDateTime.now();
-        List<Booking> bookings = switch (state) {
-            case ALL -> bookingRepository.findAllForOwner(ownerId, SORT_DESC);
-            case CURRENT -> bookingRepository.findCurrentForOwner(ownerId, now, SORT_DESC);
-            case PAST -> bookingRepository.findPastForOwner(ownerId, now, SORT_DESC);
-            case FUTURE -> bookingRepository.findFutureForOwner(ownerId, now, SORT_DESC);
-            case WAITING -> bookingRepository.findByOwnerAndStatus(ownerId, BookingStatus.WAITING, SORT_DESC);
-            case REJECTED -> bookingRepository.findByOwnerAndStatus(ownerId, BookingStatus.REJECTED, SORT_DESC);
-            case CANCELED -> bookingRepository.findByOwnerAndStatus(ownerId, BookingStatus.CANCELED, SORT_DESC);
-        };
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        List<Booking> bookings = after == null
+                ? firstPageForOwner(ownerId, state, now, Paging.of(from, size, SORT_DESC))
+                : pageAfterForOwner(ownerId, state, now, after, Paging.first(size, SORT_DESC));
         return bookings.stream().map(BookingMapper::toResponseDto).toList();
     }
+
+    // первая страница и страница после курсора — разные запросы: условие «курсор не задан или …»
+    // не даёт планировщику начать просмотр индекса с границы курсора
+    private List<Booking> firstPageForBooker(Long bookerId, BookingState state, LocalDateTime now, Pageable page) {
+        return switch (state) {
+            case ALL -> bookingRepository.findAllForBooker(bookerId, page);
+            case CURRENT -> bookingRepository.findCurrentForBooker(bookerId, now, page);
+            case PAST -> bookingRepository.findPastForBooker(bookerId, now, page);
+            case FUTURE -> bookingRepository.findFutureForBooker(bookerId, now, page);
+            case WAITING -> bookingRepository.findByBookerAndStatus(bookerId, BookingStatus.WAITING, page);
+            case REJECTED -> bookingRepository.findByBookerAndStatus(bookerId, BookingStatus.REJECTED, page);
+            case CANCELED -> bookingRepository.findByBookerAndStatus(bookerId, BookingStatus.CANCELED, page);
+        };
+    }
+
+    private List<Booking> pageAfterForBooker(Long bookerId, BookingState state, LocalDateTime now,
+                                             KeysetCursor after, Pageable page) {
+        LocalDateTime start = after.timestamp();
+        Long id = after.id();
+        return switch (state) {
+            case ALL -> bookingRepository.findAllForBookerAfter(bookerId, start, id, page);
+            case CURRENT -> bookingRepository.findCurrentForBookerAfter(bookerId, now, start, id, page);
+            case PAST -> bookingRepository.findPastForBookerAfter(bookerId, now, start, id, page);
+            case FUTURE -> bookingRepository.findFutureForBookerAfter(bookerId, now, start, id, page);
+            case WAITING -> bookingRepository.findByBookerAndStatusAfter(bookerId, BookingStatus.WAITING,
+                    start, id, page);
+            case REJECTED -> bookingRepository.findByBookerAndStatusAfter(bookerId, BookingStatus.REJECTED,
+                    start, id, page);
+            case CANCELED -> bookingRepository.findByBookerAndStatusAfter(bookerId, BookingStatus.CANCELED,
+                    start, id, page);
+        };
+    }
+
+    private List<Booking> firstPageForOwner(Long ownerId, BookingState state, LocalDateTime now, Pageable page) {
+        return switch (state) {
+            case ALL -> bookingRepository.findAllForOwner(ownerId, page);
+            case CURRENT -> bookingRepository.findCurrentForOwner(ownerId, now, page);
+            case PAST -> bookingRepository.findPastForOwner(ownerId, now, page);
+            case FUTURE -> bookingRepository.findFutureForOwner(ownerId, now, page);
+            case WAITING -> bookingRepository.findByOwnerAndStatus(ownerId, BookingStatus.WAITING, page);
+            case REJECTED -> bookingRepository.findByOwnerAndStatus(ownerId, BookingStatus.REJECTED, page);
+            case CANCELED -> bookingRepository.findByOwnerAndStatus(ownerId, BookingStatus.CANCELED, page);
+        };
+    }
+
+    private List<Booking> pageAfterForOwner(Long ownerId, BookingState state, LocalDateTime now,
+                                            KeysetCursor after, Pageable page) {
+        LocalDateTime start = after.timestamp();
+        Long id = after.id();
+        return switch (state) {
+            case ALL -> bookingRepository.findAllForOwnerAfter(ownerId, start, id, page);
+            case CURRENT -> bookingRepository.findCurrentForOwnerAfter(ownerId, now, start, id, page);
+            case PAST -> bookingRepository.findPastForOwnerAfter(ownerId, now, start, id, page);
+            case FUTURE -> bookingRepository.findFutureForOwnerAfter(ownerId, now, start, id, page);
+            case WAITING -> bookingRepository.findByOwnerAndStatusAfter(ownerId, BookingStatus.WAITING,
+                    start, id, page);
+            case REJECTED -> bookingRepository.findByOwnerAndStatusAfter(ownerId, BookingStatus.REJECTED,
+                    start, id, page);
+            case CANCELED -> bookingRepository.findByOwnerAndStatusAfter(ownerId, BookingStatus.CANCELED,
+                    start, id, page);
+        };
+    }
+
+    @Override
+    public BookingExport exportForBooker(Long bookerId) {
+        userService.checkExists(bookerId);
+        return export(bookerId, bookingRepository::streamAllForBooker);
+    }
+
+    @Override
+    public BookingExport exportForOwner(Long ownerId) {
+        userService.checkExists(ownerId);
+        return export(ownerId, bookingRepository::streamAllForOwner);
+    }
+
+    // выгрузка идёт уже после возврата из сервиса, поэтому транзакция для курсора открывается в ней самой;
+    // прочитанные сущности сразу отсоединяются, чтобы контекст персистентности не рос вместе с историей
+    private BookingExport export(Long userId, Function<Long, Stream<Booking>> query) {
+        return action -> readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<Booking> bookings = query.apply(userId)) {
+                bookings.forEach(booking -> {
+                    action.accept(BookingMapper.toResponseDto(booking));
+                    entityManager.detach(booking.getItem());
+                    entityManager.detach(booking);
+                });
+            }
+        });
+    }
 }
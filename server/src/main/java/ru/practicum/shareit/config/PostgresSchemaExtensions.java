@@ -0,0 +1,162 @@
+package ru.practicum.shareit.config;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.sql.init.dependency.DependsOnDatabaseInitialization;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Объекты схемы, которые нельзя описать в schema.sql: скрипт инициализации делит текст по ';'
+ * и не понимает PL/pgSQL-блоков, а сдвиг последовательностей зависит от данных.
+ * Выполняется после schema.sql; всё, кроме NOT NULL у bookings.owner_id и сдвига последовательностей,
+ * — только на PostgreSQL.
+ * ALTER TABLE выполняется, только если объекта ещё нет (см. {@link SchemaColumns}).
+ */
+@Slf4j
+@Component
+@DependsOnDatabaseInitialization
+@RequiredArgsConstructor
+public class PostgresSchemaExtensions {
+
+    private static final String BOOKING_EXCLUSION_CONSTRAINT = """
+            DO $$
+            BEGIN
+                IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'ex_bookings_item_period') THEN
+                    ALTER TABLE bookings ADD CONSTRAINT ex_bookings_item_period
+                        EXCLUDE USING gist (item_id WITH =, tsrange(start_date, end_date) WITH &&)
+                        WHERE (status IN ('WAITING', 'APPROVED'));
+                END IF;
+            END
+            $$
+            """;
+
+    // таблицы, созданные до появления bookings.owner_id, получают внешний ключ здесь: в schema.sql
+    // ADD CONSTRAINT нельзя сделать идемпотентным без PL/pgSQL
+    private static final String BOOKING_OWNER_FOREIGN_KEY = """
+            DO $$
+            BEGIN
+                IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'fk_bookings_owner') THEN
+                    ALTER TABLE bookings ADD CONSTRAINT fk_bookings_owner
+                        FOREIGN KEY (owner_id) REFERENCES users (id)
+                        ON UPDATE CASCADE ON DELETE RESTRICT;
+                END IF;
+            END
+            $$
+            """;
+
+    // bookings.owner_id заполняется при вставке и следует за сменой владельца вещи
+    private static final String BOOKING_OWNER_FUNCTION = """
+            CREATE OR REPLACE FUNCTION bookings_fill_owner_id() RETURNS trigger AS $$
+            BEGIN
+                NEW.owner_id := (SELECT owner_id FROM items WHERE id = NEW.item_id);
+                RETURN NEW;
+            END
+            $$ LANGUAGE plpgsql
+            """;
+
+    private static final String ITEM_OWNER_FUNCTION = """
+            CREATE OR REPLACE FUNCTION items_propagate_owner_id() RETURNS trigger AS $$
+            BEGIN
+                UPDATE bookings SET owner_id = NEW.owner_id WHERE item_id = NEW.id;
+                RETURN NULL;
+            END
+            $$ LANGUAGE plpgsql
+            """;
+
+    private static final String[] SEQUENCE_TABLES = {"users", "item_requests", "items", "bookings", "comments"};
+
+    // шаг последовательностей и allocationSize в сущностях
+    private static final int ID_ALLOCATION = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${shareit.bookings.exclusion-constraint.enabled:true}")
+    private boolean bookingExclusionConstraint;
+
+    @Value("${shareit.bookings.owner-sync-triggers.enabled:true}")
+    private boolean bookingOwnerSyncTriggers;
+
+    @PostConstruct
+    void apply() {
+        if (SchemaColumns.isNullable(jdbcTemplate, "bookings", "owner_id")) {
+            execute("NOT NULL у bookings.owner_id", "ALTER TABLE bookings ALTER COLUMN owner_id SET NOT NULL");
+        }
+        boolean postgres = isPostgres();
+        catchUpSequences(postgres);
+        if (!postgres) {
+            return;
+        }
+        execute("внешний ключ bookings.owner_id", BOOKING_OWNER_FOREIGN_KEY);
+        if (bookingExclusionConstraint) {
+            execute("ограничение пересечения бронирований",
+                    "CREATE EXTENSION IF NOT EXISTS btree_gist",
+                    BOOKING_EXCLUSION_CONSTRAINT);
+        }
+        if (bookingOwnerSyncTriggers) {
+            execute("синхронизация bookings.owner_id",
+                    BOOKING_OWNER_FUNCTION,
+                    "DROP TRIGGER IF EXISTS trg_bookings_owner_id ON bookings",
+                    "CREATE TRIGGER trg_bookings_owner_id BEFORE INSERT OR UPDATE OF item_id ON bookings "
+                            + "FOR EACH ROW EXECUTE FUNCTION bookings_fill_owner_id()",
+                    ITEM_OWNER_FUNCTION,
+                    "DROP TRIGGER IF EXISTS trg_items_owner_id ON items",
+                    "CREATE TRIGGER trg_items_owner_id AFTER UPDATE OF owner_id ON items "
+                            + "FOR EACH ROW WHEN (OLD.owner_id IS DISTINCT FROM NEW.owner_id) "
+                            + "EXECUTE FUNCTION items_propagate_owner_id()");
+        }
+    }
+
+    // последовательность сдвигается, только если отстаёт от данных (строки вставлены через IDENTITY или вручную);
+    // иначе блоки id, уже выданные работающим экземплярам сервера, могли бы выдаться повторно
+    private void catchUpSequences(boolean postgres) {
+        List<String> restarts = new ArrayList<>();
+        for (String table : SEQUENCE_TABLES) {
+            Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM " + table, Long.class);
+            if (maxId != null && maxId >= nextSequenceValue(table, postgres)) {
+                // Hibernate выдаёт id блоками: значение последовательности — верхняя граница блока
+                restarts.add("ALTER SEQUENCE " + table + "_seq RESTART WITH " + (maxId + ID_ALLOCATION));
+            }
+        }
+        if (!restarts.isEmpty()) {
+            execute("синхронизация последовательностей id", restarts.toArray(String[]::new));
+        }
+    }
+
+    // не меньше значения, которое последовательность выдаст следующим
+    private long nextSequenceValue(String table, boolean postgres) {
+        if (postgres) {
+            return jdbcTemplate.queryForObject("SELECT last_value FROM " + table + "_seq", Long.class);
+        }
+        return jdbcTemplate.queryForObject("""
+                SELECT base_value FROM information_schema.sequences
+                 WHERE LOWER(sequence_schema) = LOWER(CURRENT_SCHEMA) AND LOWER(sequence_name) = ?
+                """, Long.class, table + "_seq");
+    }
+
+    private boolean isPostgres() {
+        String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+        return "PostgreSQL".equalsIgnoreCase(product);
+    }
+
+    private void execute(String description, String... statements) {
+        try {
+            for (String statement : statements) {
+                jdbcTemplate.execute(statement);
+            }
+            log.info("Схема БД: {} применено", description);
+        } catch (DataAccessException e) {
+            // например, в старых данных уже есть пересечения; приложение продолжает работать на проверке в памяти.
+            // Без NOT NULL у bookings.owner_id бронирования по-прежнему заполняют его сами
+            log.warn("Схема БД: {} не применено: {}", description, e.getMessage());
+        }
+    }
+}
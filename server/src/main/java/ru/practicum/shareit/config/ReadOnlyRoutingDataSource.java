@@ -0,0 +1,87 @@
+package ru.practicum.shareit.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Источник соединений для readOnly-транзакций: реплики по кругу, а если ни одна не отвечает
+ * или пользователь недавно писал ({@link ReadYourWrites}) — основная БД.
+ * Реплика, не выдавшая соединение, исключается на failureCooldown, чтобы следующие чтения
+ * не ждали её таймаута заново.
+ */
+@Slf4j
+public class ReadOnlyRoutingDataSource extends AbstractDataSource implements Closeable {
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final ReadYourWrites readYourWrites;
+    private final long failureCooldownNanos;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReadOnlyRoutingDataSource(DataSource primary, List<? extends DataSource> replicas,
+                                     ReadYourWrites readYourWrites, Duration failureCooldown) {
+        this.primary = primary;
+        this.replicas = replicas.stream().map(Replica::new).toList();
+        this.readYourWrites = readYourWrites;
+        this.failureCooldownNanos = failureCooldown.toNanos();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (readYourWrites.readsFromPrimary()) {
+            return primary.getConnection();
+        }
+        long now = System.nanoTime();
+        int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get((start + i) % replicas.size());
+            if (now - replica.ejectedUntil.get() < 0) {
+                continue;
+            }
+            try {
+                return replica.dataSource.getConnection();
+            } catch (SQLException e) {
+                replica.ejectedUntil.set(System.nanoTime() + failureCooldownNanos);
+                log.warn("Реплика недоступна, исключена на {} с: {}",
+                        Duration.ofNanos(failureCooldownNanos).toSeconds(), e.getMessage());
+            }
+        }
+        log.debug("Нет доступных реплик, чтение идёт в основную БД");
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Учётные данные задаются в настройках пулов");
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof Closeable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    private static final class Replica {
+        private final DataSource dataSource;
+        // System.nanoTime(), до которого реплика пропускается; в начале — уже в прошлом
+        private final AtomicLong ejectedUntil = new AtomicLong(System.nanoTime());
+
+        Replica(DataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+    }
+}
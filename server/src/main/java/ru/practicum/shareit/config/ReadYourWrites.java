@@ -0,0 +1,74 @@
+package ru.practicum.shareit.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Чтение своих записей при репликах: после зафиксированной пишущей транзакции пользователя
+ * его readOnly-транзакции в течение окна идут в основную БД, куда реплика может ещё не догнать.
+ * Пользователь берётся из заголовка X-Sharer-User-Id текущего запроса (см. {@link ReadYourWritesFilter}).
+ * Запросы /users заголовка не несут, поэтому сервис называет затронутого пользователя сам через {@link #involve(Long)}.
+ */
+public class ReadYourWrites implements TransactionExecutionListener {
+
+    private static final ThreadLocal<Set<Long>> CURRENT_USERS = new ThreadLocal<>();
+
+    private final Cache<Long, Boolean> recentWriters;
+
+    public ReadYourWrites(Duration window) {
+        this.recentWriters = window.isZero() || window.isNegative()
+                ? null
+                : Caffeine.newBuilder().expireAfterWrite(window).build();
+    }
+
+    static void setCurrentUser(Long userId) {
+        Set<Long> users = new HashSet<>();
+        if (userId != null) {
+            users.add(userId);
+        }
+        CURRENT_USERS.set(users);
+    }
+
+    static void clearCurrentUser() {
+        CURRENT_USERS.remove();
+    }
+
+    /**
+     * Добавляет пользователя, которого касается текущий запрос: его недавние записи читаются
+     * из основной БД, а записи этого запроса засчитываются ему. Вне HTTP-запроса ничего не делает.
+     */
+    public static void involve(Long userId) {
+        Set<Long> users = CURRENT_USERS.get();
+        if (users != null && userId != null) {
+            users.add(userId);
+        }
+    }
+
+    public boolean readsFromPrimary() {
+        Set<Long> users = CURRENT_USERS.get();
+        if (recentWriters == null || users == null) {
+            return false;
+        }
+        for (Long userId : users) {
+            if (recentWriters.getIfPresent(userId) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void afterCommit(TransactionExecution transaction, Throwable commitFailure) {
+        Set<Long> users = CURRENT_USERS.get();
+        if (recentWriters != null && users != null && commitFailure == null
+                && transaction.isNewTransaction() && !transaction.isReadOnly()) {
+            users.forEach(userId -> recentWriters.put(userId, Boolean.TRUE));
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package ru.practicum.shareit.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "shareit.datasource.replica")
+public class ReplicaProperties {
+    // адреса реплик; пустой список — всё читается и пишется в основную БД
+    private List<String> urls = new ArrayList<>();
+    // по умолчанию те же, что у spring.datasource
+    private String username;
+    private String password;
+    // сколько после записи чтения того же пользователя идут в основную БД; 0 — без привязки
+    private Duration stickyWindow = Duration.ofSeconds(5);
+    // ожидание соединения у реплики: недоступная реплика не должна задерживать чтение на весь таймаут основного пула
+    private Duration connectionTimeout = Duration.ofMillis(500);
+    // сколько не обращаться к реплике после ошибки соединения
+    private Duration failureCooldown = Duration.ofSeconds(30);
+}
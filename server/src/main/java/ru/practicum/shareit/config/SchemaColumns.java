@@ -0,0 +1,28 @@
+package ru.practicum.shareit.config;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Состояние колонок текущей схемы по information_schema (одинаково в PostgreSQL и H2).
+ * Нужно, чтобы миграция при запуске выполняла ALTER TABLE один раз: в PostgreSQL даже ALTER, который ничего
+ * не меняет, берёт ACCESS EXCLUSIVE на таблицу, ждёт длинных транзакций и держит все запросы к ней за собой.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class SchemaColumns {
+
+    public static boolean isNullable(JdbcTemplate jdbcTemplate, String table, String column) {
+        // H2 хранит имена в верхнем регистре, PostgreSQL — в нижнем
+        List<String> nullable = jdbcTemplate.queryForList("""
+                        SELECT is_nullable FROM information_schema.columns
+                         WHERE LOWER(table_schema) = LOWER(CURRENT_SCHEMA)
+                           AND LOWER(table_name) = ? AND LOWER(column_name) = ?
+                        """, String.class,
+                table.toLowerCase(Locale.ROOT), column.toLowerCase(Locale.ROOT));
+        return !nullable.isEmpty() && "YES".equalsIgnoreCase(nullable.get(0));
+    }
+}
@@ -0,0 +1,37 @@
+package ru.practicum.shareit.exceptions;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.sql.SQLException;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Распознаёт нарушение конкретного ограничения БД в цепочке причин исключения.
+ * В 409 переводится только ожидаемое нарушение; прочие (внешний ключ, NOT NULL) остаются ошибкой сервера.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class ConstraintViolations {
+
+    public static boolean violates(Throwable error, String constraint, String... sqlStates) {
+        String name = constraint.toLowerCase(Locale.ROOT);
+        Set<String> states = Set.of(sqlStates);
+        for (Throwable cause = error; cause != null; cause = cause.getCause() == cause ? null : cause.getCause()) {
+            if (cause instanceof org.hibernate.exception.ConstraintViolationException violation
+                    && violation.getConstraintName() != null
+                    && violation.getConstraintName().toLowerCase(Locale.ROOT).contains(name)) {
+                return true;
+            }
+            if (cause instanceof SQLException sql) {
+                if (sql.getSQLState() != null && states.contains(sql.getSQLState())) {
+                    return true;
+                }
+                if (sql.getMessage() != null && sql.getMessage().toLowerCase(Locale.ROOT).contains(name)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
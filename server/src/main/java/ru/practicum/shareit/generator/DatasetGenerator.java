@@ -0,0 +1,240 @@
+package ru.practicum.shareit.generator;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.BookingStatus;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Заполняет БД синтетическими пользователями, запросами, вещами, бронированиями и отзывами
+ * пакетными JDBC-вставками с явными id, после чего сдвигает последовательности и IDENTITY за максимум.
+ * Включается профилем generator; новые id продолжают уже существующие в таблицах.
+ */
+@Slf4j
+@Component
+@Profile("generator")
+@RequiredArgsConstructor
+@EnableConfigurationProperties(DatasetGeneratorProperties.class)
+public class DatasetGenerator implements ApplicationRunner {
+
+    private static final String[] WORDS = {"Дрель", "Пила", "Лестница", "Палатка", "Велосипед", "Перфоратор",
+            "Шуруповёрт", "Удочка", "Рюкзак", "Самокат", "Мангал", "Проектор", "Гитара", "Сапборд", "Кофемашина"};
+    // allocationSize последовательностей в сущностях
+    private static final int ID_ALLOCATION = 50;
+    private static final String[] TABLES = {"users", "item_requests", "items", "bookings", "comments"};
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DatasetGeneratorProperties properties;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        generate();
+    }
+
+    public void generate() {
+        long started = System.nanoTime();
+        SplittableRandom random = new SplittableRandom(properties.getSeed());
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS);
+        Ids ids = new Ids(nextId("users"), nextId("item_requests"), nextId("items"),
+                nextId("bookings"), nextId("comments"));
+        long firstUser = ids.user;
+        long lastUser = firstUser + properties.getUsers() - 1;
+
+        Batch users = new Batch("INSERT INTO users (id, name, email, email_normalized) VALUES (?, ?, ?, ?)");
+        for (long id = firstUser; id <= lastUser; id++) {
+            String email = "user" + id + "@shareit.gen";
+            users.add(id, "Пользователь " + id, email, email);
+            users.flushIfFull();
+        }
+        users.flush();
+        log.info("Пользователи: {}", users.total);
+
+        Batch requests = new Batch("INSERT INTO item_requests (id, description, requester_id, created) "
+                + "VALUES (?, ?, ?, ?)");
+        for (long userId = firstUser; userId <= lastUser; userId++) {
+            long count = geometric(random, properties.getRequestsPerUser());
+            for (long i = 0; i < count; i++) {
+                requests.add(ids.request++, "Нужна вещь: " + word(random), userId,
+                        Timestamp.valueOf(now.minusHours(random.nextLong(properties.getHorizon().toHours() + 1))));
+            }
+            requests.flushIfFull();
+        }
+        requests.flush();
+        long firstRequest = ids.request - requests.total;
+        log.info("Запросы: {}", requests.total);
+
+        // вещи вставляются раньше ссылающихся на них бронирований и отзывов того же пакета
+        Batch items = new Batch("INSERT INTO items (id, name, description, is_available, owner_id, request_id) "
+                + "VALUES (?, ?, ?, ?, ?, ?)");
+        Batch bookings = new Batch("INSERT INTO bookings (id, start_date, end_date, booker_id, item_id, status, owner_id) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?)");
+        Batch comments = new Batch("INSERT INTO comments (id, text, item_id, author_id, created) "
+                + "VALUES (?, ?, ?, ?, ?)");
+        for (long ownerId = firstUser; ownerId <= lastUser; ownerId++) {
+            if (random.nextDouble() >= properties.getOwnerRate()) {
+                continue;
+            }
+            long itemCount = 1 + geometric(random, Math.max(0, properties.getItemsPerOwner() - 1));
+            for (long i = 0; i < itemCount; i++) {
+                long itemId = ids.item++;
+                String word = word(random);
+                Long requestId = requests.total > 0 && random.nextDouble() < properties.getItemRequestRate()
+                        ? firstRequest + random.nextLong(requests.total)
+                        : null;
+                items.add(itemId, word + " " + itemId, word + " в хорошем состоянии, можно забрать сегодня",
+                        random.nextInt(10) != 0, ownerId, requestId);
+                addBookings(random, now, ids, itemId, ownerId, firstUser, lastUser, bookings, comments);
+            }
+            if (items.isFull() || bookings.isFull()) {
+                items.flush();
+                bookings.flush();
+                comments.flush();
+            }
+        }
+        items.flush();
+        bookings.flush();
+        comments.flush();
+        log.info("Вещи: {}, бронирования: {}, отзывы: {}", items.total, bookings.total, comments.total);
+
+        for (String table : TABLES) {
+            restartIdentity(table);
+        }
+        log.info("Генерация завершена за {} с", (System.nanoTime() - started) / 1_000_000_000);
+    }
+
+    private void addBookings(SplittableRandom random, LocalDateTime now, Ids ids, long itemId, long ownerId,
+                             long firstUser, long lastUser, Batch bookings, Batch comments) {
+        long count = geometric(random, properties.getBookingsPerItem());
+        if (count == 0 || firstUser == lastUser) {
+            return;
+        }
+        // интервалы одной вещи не пересекаются: следующее бронирование начинается после окончания предыдущего
+        LocalDateTime start = now.minusHours(random.nextLong(properties.getHorizon().toHours() + 1));
+        for (long i = 0; i < count; i++) {
+            LocalDateTime end = start.plusHours(1 + random.nextInt(72));
+            long bookerId = firstUser + random.nextLong(lastUser - firstUser + 1);
+            if (bookerId == ownerId) {
+                bookerId = bookerId == lastUser ? firstUser : bookerId + 1;
+            }
+            BookingStatus status = status(random, start, now);
+            long bookingId = ids.booking++;
+            bookings.add(bookingId, Timestamp.valueOf(start), Timestamp.valueOf(end), bookerId, itemId, status.name(),
+                    ownerId);
+
+            if (status == BookingStatus.APPROVED && end.isBefore(now)
+                    && random.nextDouble() < properties.getCommentRate()) {
+                comments.add(ids.comment++, "Отзыв к бронированию " + bookingId, itemId, bookerId,
+                        Timestamp.valueOf(end.plusHours(1)));
+            }
+            start = end.plusHours(random.nextInt(96));
+        }
+    }
+
+    private BookingStatus status(SplittableRandom random, LocalDateTime start, LocalDateTime now) {
+        double roll = random.nextDouble();
+        if (roll < properties.getRejectedRate()) {
+            return BookingStatus.REJECTED;
+        }
+        if (roll < properties.getRejectedRate() + properties.getCanceledRate()) {
+            return BookingStatus.CANCELED;
+        }
+        // ещё не начавшиеся бронирования часть времени ждут решения владельца
+        return start.isAfter(now) && random.nextBoolean() ? BookingStatus.WAITING : BookingStatus.APPROVED;
+    }
+
+    private static long geometric(SplittableRandom random, double mean) {
+        if (mean <= 0) {
+            return 0;
+        }
+        double p = 1 / (1 + mean);
+        return (long) Math.floor(Math.log(1 - random.nextDouble()) / Math.log(1 - p));
+    }
+
+    private static String word(SplittableRandom random) {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+
+    private long nextId(String table) {
+        Long max = jdbcTemplate.queryForObject("SELECT MAX(id) FROM " + table, Long.class);
+        return max == null ? 1 : max + 1;
+    }
+
+    private void restartIdentity(String table) {
+        long next = nextId(table);
+        // Hibernate выдаёт id блоками: значение последовательности — верхняя граница блока
+        jdbcTemplate.execute("ALTER SEQUENCE " + table + "_seq RESTART WITH " + (next + ID_ALLOCATION - 1));
+        if (isPostgres()) {
+            jdbcTemplate.queryForObject("SELECT setval(pg_get_serial_sequence(?, 'id'), ?, false)",
+                    Long.class, table, next);
+        } else {
+            jdbcTemplate.execute("ALTER TABLE " + table + " ALTER COLUMN id RESTART WITH " + next);
+        }
+    }
+
+    private boolean isPostgres() {
+        String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+        return "PostgreSQL".equalsIgnoreCase(product);
+    }
+
+    private static final class Ids {
+        private long user;
+        private long request;
+        private long item;
+        private long booking;
+        private long comment;
+
+        Ids(long user, long request, long item, long booking, long comment) {
+            this.user = user;
+            this.request = request;
+            this.item = item;
+            this.booking = booking;
+            this.comment = comment;
+        }
+    }
+
+    private final class Batch {
+        private final String sql;
+        private final List<Object[]> rows = new ArrayList<>();
+        private long total;
+
+        Batch(String sql) {
+            this.sql = sql;
+        }
+
+        void add(Object... row) {
+            rows.add(row);
+            total++;
+        }
+
+        boolean isFull() {
+            return rows.size() >= properties.getBatchSize();
+        }
+
+        void flushIfFull() {
+            if (isFull()) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (!rows.isEmpty()) {
+                jdbcTemplate.batchUpdate(sql, rows);
+                rows.clear();
+            }
+        }
+    }
+}
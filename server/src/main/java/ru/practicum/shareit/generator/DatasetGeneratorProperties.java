@@ -0,0 +1,37 @@
+package ru.practicum.shareit.generator;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Объёмы и распределения синтетических данных. Количества на пользователя и вещь берутся
+ * из геометрического распределения с заданным средним, поэтому итоговые объёмы примерно равны
+ * users * ownerRate * itemsPerOwner и т.д.; при одинаковом seed результат повторяется.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "shareit.generator")
+public class DatasetGeneratorProperties {
+    private long seed = 42;
+    private int batchSize = 1_000;
+
+    private long users = 1_000;
+    // доля пользователей, у которых есть вещи, и среднее число вещей у такого владельца
+    private double ownerRate = 0.5;
+    private double itemsPerOwner = 10;
+
+    private double requestsPerUser = 0.2;
+    // доля вещей, добавленных в ответ на какой-либо запрос
+    private double itemRequestRate = 0.05;
+
+    private double bookingsPerItem = 10;
+    private double rejectedRate = 0.05;
+    private double canceledRate = 0.03;
+    // доля завершённых одобренных бронирований, по которым оставлен отзыв
+    private double commentRate = 0.3;
+    // бронирования одной вещи идут подряд, начиная со случайного момента в пределах horizon до текущего
+    private Duration horizon = Duration.ofDays(180);
+}
@@ -1,10 +1,15 @@
 package ru.practicum.shareit.item;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.item.bulk.ItemImportFormat;
+import ru.practicum.shareit.item.bulk.ItemImporter;
 import ru.practicum.shareit.item.comment.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemImportResultDto;
 
+import java.io.InputStream;
 import java.util.List;
 
 @RestController
@@ -13,6 +18,7 @@ import java.util.List;
 public class ItemController {
 
     private final ItemService service;
+    private final ItemImporter importer;
 
     private static final String USER_HEADER = "X-Sharer-User-Id";
 
@@ -22,6 +28,19 @@ public class ItemController {
         return service.create(userId, dto);
     }
 
+    // тело не связывается через @RequestBody: импортёр читает поток сам, по строке за раз
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ItemImportResultDto importNdjson(@RequestHeader(USER_HEADER) Long userId,
+                                            InputStream body) {
+        return importer.importItems(userId, ItemImportFormat.NDJSON, body);
+    }
+
+    @PostMapping(value = "/bulk", consumes = ItemImportFormat.CSV_VALUE)
+    public ItemImportResultDto importCsv(@RequestHeader(USER_HEADER) Long userId,
+                                         InputStream body) {
+        return importer.importItems(userId, ItemImportFormat.CSV, body);
+    }
+
     @PostMapping("/{itemId}/comment")
     public CommentDto addComment(@RequestHeader("X-Sharer-User-Id") Long userId,
                                  @PathVariable Long itemId,
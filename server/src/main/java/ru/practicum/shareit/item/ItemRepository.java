@@ -1,10 +1,12 @@
 package ru.practicum.shareit.item;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import ru.practicum.shareit.item.model.Item;
 
+import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.List;
 
@@ -21,5 +23,15 @@ public interface ItemRepository extends JpaRepository<Item, Long> {
     List<Item> search(@Param("text") String text);
 
     List<Item> findAllByRequestIdIn(Collection<Long> requestIds);
+
+    List<Item> findAllByAvailableTrueAndIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    @Query("""
+            SELECT i FROM Item i
+            WHERE i.updatedAt > :since
+               OR (i.updatedAt = :since AND i.id > :id)
+            ORDER BY i.updatedAt, i.id
+            """)
+    List<Item> findChangedAfter(@Param("since") LocalDateTime since, @Param("id") Long id, Limit limit);
 }
 
@@ -0,0 +1,446 @@
+package ru.practicum.shareit.item;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Триграммный индекс по доступным вещам для /items/search.
+ * Ищет подстроку без учёта регистра так же, как JPQL-запрос {@link ItemRepository#search(String)},
+ * но без полного просмотра таблицы. Пока индекс не построен, поиск идёт через БД.
+ * <p>
+ * Записи своего экземпляра попадают в индекс сразу после фиксации, записи других экземпляров —
+ * при периодической догрузке изменённых вещей по items.updated_at. Полная перестройка по расписанию
+ * убирает всё, что догрузка не видит (удаления, правки в обход приложения).
+ * <p>
+ * Списки вхождений хранятся отсортированными массивами long: около 8 байт на пару (триграмма, вещь)
+ * вместо узла множества и упакованного Long. Изменённые вещи копятся в небольшом сегменте-множестве,
+ * который при догрузке вливается в массивы, когда вырастает больше 1/8 индекса.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ItemSearchIndex {
+
+    private static final int GRAM = 3;
+    private static final int REBUILD_PAGE_SIZE = 1_000;
+    // свежий сегмент меньше этого не уплотняется: копирование массивов дороже поиска по множеству
+    private static final int MIN_CHANGES_TO_COMPACT = 10_000;
+
+    private final ItemRepository itemRepository;
+
+    @Value("${shareit.items.search-index.enabled:true}")
+    private boolean enabled;
+
+    @Value("${shareit.items.search-index.refresh-interval:PT10S}")
+    private Duration refreshInterval;
+
+    // запас назад от прошлой догрузки: транзакции, зафиксированные позже своего updated_at, и отставание реплики
+    @Value("${shareit.items.search-index.refresh-overlap:PT30S}")
+    private Duration refreshOverlap;
+
+    @Value("${shareit.items.search-index.rebuild-interval:PT1H}")
+    private Duration rebuildInterval;
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final ReentrantLock compactionLock = new ReentrantLock();
+    private volatile Snapshot snapshot = new Snapshot(new ConcurrentHashMap<>());
+    private volatile boolean ready;
+    private volatile LocalDateTime refreshedAt;
+    private ScheduledExecutorService scheduler;
+
+    public boolean isReady() {
+        return enabled && ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        rebuild();
+        if (refreshInterval.isPositive() || rebuildInterval.isPositive()) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(
+                    Thread.ofPlatform().name("item-search-index").daemon().factory());
+        }
+        if (refreshInterval.isPositive()) {
+            scheduler.scheduleWithFixedDelay(() -> runSafely(this::refresh),
+                    refreshInterval.toMillis(), refreshInterval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+        if (rebuildInterval.isPositive()) {
+            scheduler.scheduleWithFixedDelay(() -> runSafely(this::rebuild),
+                    rebuildInterval.toMillis(), rebuildInterval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Строит индекс заново рядом с текущим и подменяет его целиком: поиск во время перестройки
+     * продолжает работать по старому индексу.
+     */
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        LocalDateTime startedAt = LocalDateTime.now();
+        Map<Long, Document> documents = new ConcurrentHashMap<>();
+
+        long lastId = 0;
+        List<Item> page;
+        do {
+            page = itemRepository.findAllByAvailableTrueAndIdGreaterThanOrderByIdAsc(lastId,
+                    Limit.of(REBUILD_PAGE_SIZE));
+            page.forEach(item -> documents.put(item.getId(), Document.of(item)));
+            if (!page.isEmpty()) {
+                lastId = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == REBUILD_PAGE_SIZE);
+        Snapshot rebuilt = new Snapshot(documents);
+
+        writeLock.lock();
+        try {
+            snapshot = rebuilt;
+            refreshedAt = startedAt;
+        } finally {
+            writeLock.unlock();
+        }
+        // изменения, зафиксированные во время перестройки, в неё могли не попасть
+        refresh();
+        ready = true;
+        Segments segments = rebuilt.segments;
+        log.info("Индекс поиска вещей построен: {} вещей, {} триграмм, {} вхождений",
+                rebuilt.documents.size(), segments.compact().size(), segments.compactEntries());
+    }
+
+    /**
+     * Догружает вещи, изменённые с прошлой догрузки, в том числе другими экземплярами сервера.
+     */
+    public void refresh() {
+        if (!enabled || refreshedAt == null) {
+            return;
+        }
+        LocalDateTime startedAt = LocalDateTime.now();
+        LocalDateTime since = refreshedAt.minus(refreshOverlap);
+        long lastId = 0;
+        int changed = 0;
+        List<Item> page;
+        do {
+            page = itemRepository.findChangedAfter(since, lastId, Limit.of(REBUILD_PAGE_SIZE));
+            for (Item item : page) {
+                put(Document.of(item));
+                since = item.getUpdatedAt();
+                lastId = item.getId();
+            }
+            changed += page.size();
+        } while (page.size() == REBUILD_PAGE_SIZE);
+        refreshedAt = startedAt;
+        log.debug("Индекс поиска вещей догружен: {} изменённых вещей", changed);
+        Snapshot current = snapshot;
+        if (current.changed > Math.max(MIN_CHANGES_TO_COMPACT, current.documents.size() / 8)) {
+            compact();
+        }
+    }
+
+    /**
+     * Вливает свежий сегмент в массивы. Поиск и запись не ждут: на время построения запись идёт
+     * в ещё один свежий сегмент, а поиск видит все.
+     */
+    void compact() {
+        if (!compactionLock.tryLock()) {
+            return;
+        }
+        try {
+            Snapshot target;
+            Map<Long, Set<Long>> fresh = new ConcurrentHashMap<>();
+            writeLock.lock();
+            try {
+                target = snapshot;
+                target.segments = target.segments.withRecent(fresh);
+                target.changed = 0;
+            } finally {
+                writeLock.unlock();
+            }
+            Map<Long, long[]> compacted = compact(target.documents);
+            writeLock.lock();
+            try {
+                target.segments = new Segments(compacted, List.of(fresh));
+            } finally {
+                writeLock.unlock();
+            }
+        } finally {
+            compactionLock.unlock();
+        }
+    }
+
+    /**
+     * Обновляет вещь в индексе после фиксации транзакции, чтобы откат не оставлял в поиске лишнего.
+     */
+    public void putAfterCommit(Item item) {
+        if (!enabled) {
+            return;
+        }
+        Document document = Document.of(item);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    put(document);
+                }
+            });
+        } else {
+            put(document);
+        }
+    }
+
+    public void put(Item item) {
+        put(Document.of(item));
+    }
+
+    public List<ItemDto> search(String text) {
+        String query = fold(text);
+        Snapshot current = snapshot;
+        Collection<Document> candidates = query.length() < GRAM
+                ? current.documents.values()
+                : current.candidates(query);
+
+        return candidates.stream()
+                .filter(document -> document.matches(query))
+                .sorted(Comparator.comparing(Document::id))
+                .map(Document::toDto)
+                .toList();
+    }
+
+    private void put(Document document) {
+        writeLock.lock();
+        try {
+            snapshot.put(document);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void runSafely(Runnable task) {
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            log.warn("Не удалось обновить индекс поиска вещей", e);
+        }
+    }
+
+    /**
+     * Документы и списки вхождений триграмм. Поиск читает их без блокировки.
+     * Вещь, изменённая после уплотнения, есть в последнем свежем сегменте со всеми своими триграммами,
+     * поэтому кандидаты — объединение пересечений по каждому сегменту. Старые вхождения изменённой
+     * вещи остаются в массивах до следующего уплотнения: такой кандидат отсеется
+     * проверкой {@link Document#matches}, а пропавшего не будет.
+     */
+    private static class Snapshot {
+        private final Map<Long, Document> documents;
+        private volatile Segments segments;
+        // изменений с последнего уплотнения; меняется под writeLock
+        private volatile int changed;
+
+        Snapshot(Map<Long, Document> documents) {
+            this.documents = documents;
+            this.segments = new Segments(compact(documents), List.of(new ConcurrentHashMap<>()));
+        }
+
+        // вызывается под writeLock. Догрузка с запасом назад снова читает уже проиндексированные вещи:
+        // неизменённые не попадают в свежий сегмент, иначе после перестройки он повторил бы весь индекс
+        void put(Document document) {
+            Document indexed = documents.get(document.id());
+            if (document.available() ? document.equals(indexed) : indexed == null) {
+                return;
+            }
+            if (document.available()) {
+                Map<Long, Set<Long>> recent = segments.writable();
+                grams(document).forEach(gram -> recent
+                        .computeIfAbsent(gram, key -> ConcurrentHashMap.newKeySet())
+                        .add(document.id()));
+                documents.put(document.id(), document);
+            } else {
+                documents.remove(document.id());
+            }
+            changed++;
+        }
+
+        Collection<Document> candidates(String query) {
+            Set<Long> grams = grams(query);
+            Segments current = segments;
+            Set<Long> ids = new HashSet<>();
+            intersectCompact(current.compact(), grams, ids);
+            current.recent().forEach(recent -> intersectRecent(recent, grams, ids));
+
+            List<Document> result = new ArrayList<>(ids.size());
+            for (Long id : ids) {
+                Document document = documents.get(id);
+                if (document != null) {
+                    result.add(document);
+                }
+            }
+            return result;
+        }
+
+        private static void intersectCompact(Map<Long, long[]> postings, Set<Long> grams, Set<Long> into) {
+            List<long[]> lists = new ArrayList<>(grams.size());
+            for (Long gram : grams) {
+                long[] ids = postings.get(gram);
+                if (ids == null) {
+                    return;
+                }
+                lists.add(ids);
+            }
+            lists.sort(Comparator.comparingInt(ids -> ids.length));
+            for (long id : lists.get(0)) {
+                boolean everywhere = true;
+                for (int i = 1; i < lists.size() && everywhere; i++) {
+                    everywhere = Arrays.binarySearch(lists.get(i), id) >= 0;
+                }
+                if (everywhere) {
+                    into.add(id);
+                }
+            }
+        }
+
+        private static void intersectRecent(Map<Long, Set<Long>> postings, Set<Long> grams, Set<Long> into) {
+            List<Set<Long>> lists = new ArrayList<>(grams.size());
+            for (Long gram : grams) {
+                Set<Long> ids = postings.get(gram);
+                if (ids == null) {
+                    return;
+                }
+                lists.add(ids);
+            }
+            lists.sort(Comparator.comparingInt(Set::size));
+            for (Long id : lists.get(0)) {
+                if (lists.stream().skip(1).allMatch(ids -> ids.contains(id))) {
+                    into.add(id);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param compact отсортированные id вещей по триграммам на момент уплотнения
+     * @param recent  вещи, изменённые после него; запись идёт в последний сегмент
+     */
+    private record Segments(Map<Long, long[]> compact, List<Map<Long, Set<Long>>> recent) {
+
+        Map<Long, Set<Long>> writable() {
+            return recent.get(recent.size() - 1);
+        }
+
+        Segments withRecent(Map<Long, Set<Long>> fresh) {
+            List<Map<Long, Set<Long>>> extended = new ArrayList<>(recent);
+            extended.add(fresh);
+            return new Segments(compact, List.copyOf(extended));
+        }
+
+        long compactEntries() {
+            return compact.values().stream().mapToLong(ids -> ids.length).sum();
+        }
+    }
+
+    // два прохода по одним и тем же версиям документов: подсчёт длины списков, затем заполнение массивов
+    // в порядке id, так что каждый массив сразу отсортирован
+    private static Map<Long, long[]> compact(Map<Long, Document> documents) {
+        Document[] ordered = documents.values().toArray(Document[]::new);
+        Arrays.sort(ordered, Comparator.comparing(Document::id));
+        Map<Long, int[]> counts = new HashMap<>();
+        for (Document document : ordered) {
+            grams(document).forEach(gram -> counts.computeIfAbsent(gram, key -> new int[1])[0]++);
+        }
+        Map<Long, long[]> postings = new HashMap<>(counts.size() * 2);
+        counts.forEach((gram, count) -> postings.put(gram, new long[count[0]]));
+        counts.values().forEach(count -> count[0] = 0);
+        for (Document document : ordered) {
+            for (Long gram : grams(document)) {
+                postings.get(gram)[counts.get(gram)[0]++] = document.id();
+            }
+        }
+        return postings;
+    }
+
+    private static Set<Long> grams(Document document) {
+        Set<Long> grams = grams(document.name());
+        grams.addAll(grams(document.description()));
+        return grams;
+    }
+
+    private static Set<Long> grams(String folded) {
+        Set<Long> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= folded.length(); i++) {
+            grams.add(((long) folded.charAt(i) << 32)
+                    | ((long) folded.charAt(i + 1) << 16)
+                    | folded.charAt(i + 2));
+        }
+        return grams;
+    }
+
+    // toUpperCase + toLowerCase с Locale.ROOT даёт одинаковую свёртку для кириллицы и латиницы
+    // и не зависит от локали JVM (турецкая i и т.п.)
+    static String fold(String text) {
+        return text == null ? "" : text.toUpperCase(Locale.ROOT).toLowerCase(Locale.ROOT);
+    }
+
+    private record Document(Long id, String name, String description, boolean available, Long requestId,
+                            String originalName, String originalDescription) {
+
+        static Document of(Item item) {
+            return new Document(item.getId(),
+                    fold(item.getName()),
+                    fold(item.getDescription()),
+                    Boolean.TRUE.equals(item.getAvailable()),
+                    item.getRequestId(),
+                    item.getName(),
+                    item.getDescription());
+        }
+
+        boolean matches(String query) {
+            return name.contains(query) || description.contains(query);
+        }
+
+        ItemDto toDto() {
+            return ItemDto.builder()
+                    .id(id)
+                    .name(originalName)
+                    .description(originalDescription)
+                    .available(available)
+                    .requestId(requestId)
+                    .build();
+        }
+    }
+}
@@ -6,6 +6,7 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 import ru.practicum.shareit.booking.BookingRepository;
 import ru.practicum.shareit.booking.dto.BookingShortDto;
+import ru.practicum.shareit.booking.dto.ItemBookingView;
 import ru.practicum.shareit.exceptions.ForbiddenException;
 import ru.practicum.shareit.exceptions.NotFoundException;
 import ru.practicum.shareit.exceptions.ValidationException;
@@ -20,8 +21,12 @@ import ru.practicum.shareit.request.ItemRequestRepository;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.UserService;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -33,6 +38,7 @@ public class ItemServiceImpl implements ItemService {
     private final BookingRepository bookingRepository;
     private final CommentRepository commentRepository;
     private final ItemRequestRepository itemRequestRepository;
+    private final ItemSearchIndex searchIndex;
 
     @Override
     @Transactional
@@ -51,6 +57,7 @@ public class ItemServiceImpl implements ItemService {
         }
 
         Item saved = itemRepository.save(entity);
+        searchIndex.putAfterCommit(saved);
         return ItemMapper.toItemDto(saved);
     }
 
@@ -66,7 +73,9 @@ public class ItemServiceImpl implements ItemService {
         if (patch.getDescription() != null) item.setDescription(patch.getDescription());
         if (patch.getAvailable() != null) item.setAvailable(patch.getAvailable());
 
-        return ItemMapper.toItemDto(itemRepository.save(item));
+        Item saved = itemRepository.save(item);
+        searchIndex.putAfterCommit(saved);
+        return ItemMapper.toItemDto(saved);
     }
 
     @Override
@@ -77,38 +86,33 @@ public class ItemServiceImpl implements ItemService {
         ItemDto dto = ItemMapper.toItemDto(item);
 
         if (Objects.equals(item.getOwner().getId(), requesterId)) {
-            fillBookingDates(dto, item.getId());
+            fillBookingDates(List.of(dto));
         }
-
-        dto.setComments(
-                commentRepository.findAllByItemIdOrderByCreatedDesc(itemId).stream()
-                        .map(CommentMapper::toDto)
-                        .toList()
-        );
+        fillComments(List.of(dto));
         return dto;
     }
 
     @Override
     public List<ItemDto> getByOwner(Long ownerId) {
-        return itemRepository.findAllByOwnerIdOrderByIdAsc(ownerId).stream()
-                .map(item -> {
-                    ItemDto dto = ItemMapper.toItemDto(item);
-                    fillBookingDates(dto, item.getId());
-                    dto.setComments(
-                            commentRepository.findAllByItemIdOrderByCreatedDesc(item.getId()).stream()
-                                    .map(CommentMapper::toDto)
-                                    .toList()
-                    );
-
-                    return dto;
-                })
+        List<ItemDto> items = itemRepository.findAllByOwnerIdOrderByIdAsc(ownerId).stream()
+                .map(ItemMapper::toItemDto)
                 .toList();
+        if (items.isEmpty()) {
+            return items;
+        }
+
+        fillBookingDates(items);
+        fillComments(items);
+        return items;
     }
 
 
     @Override
     public List<ItemDto> search(String text) {
         if (!StringUtils.hasText(text)) return List.of();
+        if (searchIndex.isReady()) {
+            return searchIndex.search(text);
+        }
         return itemRepository.search(text).stream()
                 .map(ItemMapper::toItemDto)
                 .toList();
@@ -119,26 +123,36 @@ public class ItemServiceImpl implements ItemService {
                 .orElseThrow(() -> new NotFoundException("Вещь не найдена: " + id));
     }
 
-    private void fillBookingDates(ItemDto dto, Long itemId) {
-        bookingRepository.findLastBooking(itemId).stream().findFirst()
-                .ifPresent(booking -> dto.setLastBooking(
-                        new BookingShortDto(
-                                booking.getId(),
-                                booking.getBooker().getId(),
-                                booking.getStart(),
-                                booking.getEnd()
-                        )
-                ));
-
-        bookingRepository.findNextBooking(itemId).stream().findFirst()
-                .ifPresent(booking -> dto.setNextBooking(
-                        new BookingShortDto(
-                                booking.getId(),
-                                booking.getBooker().getId(),
-                                booking.getStart(),
-                                booking.getEnd()
-                        )
-                ));
+    private void fillBookingDates(List<ItemDto> items) {
+        Map<Long, ItemDto> byId = items.stream()
+                .collect(Collectors.toMap(ItemDto::getId, Function.identity()));
+
+        for (ItemBookingView booking : bookingRepository.findLastAndNextBookings(byId.keySet(), LocalDateTime.now())) {
+            BookingShortDto shortDto = new BookingShortDto(
+                    booking.getId(),
+                    booking.getBookerId(),
+                    booking.getStartDate(),
+                    booking.getEndDate()
+            );
+            ItemDto dto = byId.get(booking.getItemId());
+            if (Boolean.TRUE.equals(booking.getPast())) {
+                dto.setLastBooking(shortDto);
+            } else {
+                dto.setNextBooking(shortDto);
+            }
+        }
+    }
+
+    private void fillComments(List<ItemDto> items) {
+        List<Long> itemIds = items.stream()
+                .map(ItemDto::getId)
+                .toList();
+
+        Map<Long, List<CommentDto>> commentsByItem = commentRepository.findAllByItemIdIn(itemIds).stream()
+                .collect(Collectors.groupingBy(comment -> comment.getItem().getId(),
+                        Collectors.mapping(CommentMapper::toDto, Collectors.toList())));
+
+        items.forEach(dto -> dto.setComments(commentsByItem.getOrDefault(dto.getId(), List.of())));
     }
 
     @Override
@@ -147,7 +161,7 @@ public class ItemServiceImpl implements ItemService {
         var user = userService.getEntityOrThrow(authorId);
         var item = getEntityOrThrow(itemId);
 
-        var now = java.time.LocalDateTime.now();
+        var now = LocalDateTime.now();
         boolean canComment = commentRepository.userHasFinishedBooking(authorId, itemId, now);
         if (!canComment) {
             throw new ValidationException("Оставить отзыв может только тот, кто брал вещь и уже вернул её");
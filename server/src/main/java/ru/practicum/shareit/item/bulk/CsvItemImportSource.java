@@ -0,0 +1,161 @@
+package ru.practicum.shareit.item.bulk;
+
+import ru.practicum.shareit.exceptions.ValidationException;
+import ru.practicum.shareit.item.dto.ItemImportRowDto;
+
+import java.io.IOException;
+import java.io.PushbackReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * CSV по RFC 4180 с заголовком: name, description, available и необязательный requestId.
+ * Значения в кавычках могут содержать запятые, переводы строк и удвоенные кавычки.
+ */
+class CsvItemImportSource implements ItemImportSource {
+
+    private static final char BOM = '\uFEFF';
+
+    private final PushbackReader reader;
+    private final int nameColumn;
+    private final int descriptionColumn;
+    private final int availableColumn;
+    private final int requestIdColumn;
+    private long line = 1;
+    private boolean unterminated;
+
+    CsvItemImportSource(Reader reader) throws IOException {
+        this.reader = new PushbackReader(reader);
+        List<String> header = readRecord();
+        if (header == null) {
+            throw new ValidationException("CSV не содержит заголовка");
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            String name = header.get(i).trim().toLowerCase(Locale.ROOT);
+            columns.putIfAbsent(i == 0 && name.startsWith(String.valueOf(BOM)) ? name.substring(1) : name, i);
+        }
+        this.nameColumn = required(columns, "name");
+        this.descriptionColumn = required(columns, "description");
+        this.availableColumn = required(columns, "available");
+        this.requestIdColumn = columns.getOrDefault("requestid", columns.getOrDefault("request_id", -1));
+    }
+
+    @Override
+    public ItemImportRow next() throws IOException {
+        while (true) {
+            long start = line;
+            List<String> fields = readRecord();
+            if (fields == null) {
+                return null;
+            }
+            if (unterminated) {
+                return ItemImportRow.failed(start, "Незакрытая кавычка");
+            }
+            if (fields.size() == 1 && fields.get(0).isBlank()) {
+                continue;
+            }
+            return toRow(start, fields);
+        }
+    }
+
+    @Override
+    public long line() {
+        return line;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private ItemImportRow toRow(long start, List<String> fields) {
+        String available = field(fields, availableColumn);
+        String requestId = field(fields, requestIdColumn);
+        ItemImportRowDto item = ItemImportRowDto.builder()
+                .name(field(fields, nameColumn))
+                .description(field(fields, descriptionColumn))
+                .build();
+
+        if (available != null && !available.isBlank()) {
+            String value = available.trim();
+            if (!value.equalsIgnoreCase("true") && !value.equalsIgnoreCase("false")) {
+                return ItemImportRow.failed(start, "Некорректное значение available: " + value);
+            }
+            item.setAvailable(Boolean.valueOf(value));
+        }
+        if (requestId != null && !requestId.isBlank()) {
+            try {
+                item.setRequestId(Long.valueOf(requestId.trim()));
+            } catch (NumberFormatException e) {
+                return ItemImportRow.failed(start, "Некорректное значение requestId: " + requestId.trim());
+            }
+        }
+        return ItemImportRow.of(start, item);
+    }
+
+    // читает одну запись целиком; null — конец данных
+    private List<String> readRecord() throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean empty = true;
+        unterminated = false;
+
+        int c;
+        while ((c = reader.read()) != -1) {
+            empty = false;
+            if (quoted) {
+                if (c == '"') {
+                    int following = reader.read();
+                    if (following == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        if (following != -1) {
+                            reader.unread(following);
+                        }
+                    }
+                } else {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n') {
+                line++;
+                fields.add(field.toString());
+                return fields;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+        }
+        if (empty) {
+            return null;
+        }
+        unterminated = quoted;
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static String field(List<String> fields, int column) {
+        return column >= 0 && column < fields.size() ? fields.get(column) : null;
+    }
+
+    private static int required(Map<String, Integer> columns, String name) {
+        Integer column = columns.get(name);
+        if (column == null) {
+            throw new ValidationException("В заголовке CSV нет колонки " + name);
+        }
+        return column;
+    }
+}
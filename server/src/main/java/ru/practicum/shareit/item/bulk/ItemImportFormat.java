@@ -0,0 +1,7 @@
+package ru.practicum.shareit.item.bulk;
+
+public enum ItemImportFormat {
+    NDJSON, CSV;
+
+    public static final String CSV_VALUE = "text/csv";
+}
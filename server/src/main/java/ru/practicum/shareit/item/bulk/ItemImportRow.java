@@ -0,0 +1,17 @@
+package ru.practicum.shareit.item.bulk;
+
+import ru.practicum.shareit.item.dto.ItemImportRowDto;
+
+/**
+ * Разобранная строка загрузки: либо вещь, либо ошибка разбора. line — номер строки во входных данных.
+ */
+record ItemImportRow(long line, ItemImportRowDto item, String error) {
+
+    static ItemImportRow of(long line, ItemImportRowDto item) {
+        return new ItemImportRow(line, item, null);
+    }
+
+    static ItemImportRow failed(long line, String error) {
+        return new ItemImportRow(line, null, error);
+    }
+}
@@ -0,0 +1,17 @@
+package ru.practicum.shareit.item.bulk;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Источник строк загрузки, читающий тело запроса последовательно.
+ */
+interface ItemImportSource extends Closeable {
+
+    /**
+     * Следующая строка или null, если данные закончились.
+     */
+    ItemImportRow next() throws IOException;
+
+    long line();
+}
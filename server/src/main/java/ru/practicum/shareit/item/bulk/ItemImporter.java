@@ -0,0 +1,199 @@
+package ru.practicum.shareit.item.bulk;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.item.ItemSearchIndex;
+import ru.practicum.shareit.item.dto.ItemImportResultDto;
+import ru.practicum.shareit.item.dto.ItemImportRowDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.ItemRequestRepository;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.UserService;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Массовая загрузка вещей из NDJSON или CSV.
+ * Тело читается построчно, вещи сохраняются порциями по chunk-size, каждая порция — в своей транзакции
+ * с пакетной вставкой по batch-size. Ошибка в строке не мешает остальным: она попадает в отчёт.
+ */
+@Slf4j
+@Service
+public class ItemImporter {
+
+    private final UserService userService;
+    private final ItemRequestRepository itemRequestRepository;
+    private final ItemSearchIndex searchIndex;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final int chunkSize;
+    private final int batchSize;
+
+    public ItemImporter(UserService userService,
+                        ItemRequestRepository itemRequestRepository,
+                        ItemSearchIndex searchIndex,
+                        EntityManager entityManager,
+                        TransactionTemplate transactionTemplate,
+                        ObjectMapper objectMapper,
+                        Validator validator,
+                        @Value("${shareit.items.import.chunk-size:500}") int chunkSize,
+                        @Value("${shareit.items.import.batch-size:50}") int batchSize) {
+        this.userService = userService;
+        this.itemRequestRepository = itemRequestRepository;
+        this.searchIndex = searchIndex;
+        this.entityManager = entityManager;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.chunkSize = chunkSize;
+        this.batchSize = batchSize;
+    }
+
+    public ItemImportResultDto importItems(Long ownerId, ItemImportFormat format, InputStream body) {
+        userService.getEntityOrThrow(ownerId);
+
+        Report report = new Report();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        try (ItemImportSource source = open(format, reader)) {
+            List<ItemImportRow> chunk = new ArrayList<>(chunkSize);
+            ItemImportRow row;
+            while ((row = nextOrStop(source, report)) != null) {
+                String error = row.error() != null ? row.error() : validate(row.item());
+                if (error != null) {
+                    report.reject(row.line(), error);
+                    continue;
+                }
+                chunk.add(row);
+                if (chunk.size() == chunkSize) {
+                    save(ownerId, chunk, report);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                save(ownerId, chunk, report);
+            }
+        } catch (IOException e) {
+            log.warn("Не удалось закрыть тело запроса загрузки", e);
+        }
+        return report.toDto();
+    }
+
+    private ItemImportSource open(ItemImportFormat format, BufferedReader reader) {
+        try {
+            return switch (format) {
+                case NDJSON -> new NdjsonItemImportSource(reader, objectMapper.reader());
+                case CSV -> new CsvItemImportSource(reader);
+            };
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // обрыв чтения не отменяет уже сохранённые порции: в отчёт попадает место, где данные закончились
+    private ItemImportRow nextOrStop(ItemImportSource source, Report report) {
+        try {
+            return source.next();
+        } catch (IOException e) {
+            report.reject(source.line(), "Чтение данных прервано: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private String validate(ItemImportRowDto item) {
+        Set<ConstraintViolation<ItemImportRowDto>> violations = validator.validate(item);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    private void save(Long ownerId, List<ItemImportRow> chunk, Report report) {
+        Set<Long> requestIds = chunk.stream()
+                .map(row -> row.item().getRequestId())
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        List<ItemImportRow> missingRequest = new ArrayList<>();
+        try {
+            Integer created = transactionTemplate.execute(status -> {
+                missingRequest.clear();
+                // один запрос на порцию вместо findById на каждую вещь, как в ItemServiceImpl.create
+                Set<Long> existingRequests = requestIds.isEmpty()
+                        ? Set.of()
+                        : itemRequestRepository.findExistingIds(requestIds);
+                entityManager.unwrap(Session.class).setJdbcBatchSize(batchSize);
+                User owner = entityManager.getReference(User.class, ownerId);
+
+                int saved = 0;
+                for (ItemImportRow row : chunk) {
+                    ItemImportRowDto dto = row.item();
+                    if (dto.getRequestId() != null && !existingRequests.contains(dto.getRequestId())) {
+                        missingRequest.add(row);
+                        continue;
+                    }
+                    Item item = Item.builder()
+                            .name(dto.getName())
+                            .description(dto.getDescription())
+                            .available(dto.getAvailable())
+                            .owner(owner)
+                            .requestId(dto.getRequestId())
+                            .build();
+                    entityManager.persist(item);
+                    searchIndex.putAfterCommit(item);
+                    saved++;
+                }
+                entityManager.flush();
+                entityManager.clear();
+                return saved;
+            });
+            report.created += created == null ? 0 : created;
+            missingRequest.forEach(row -> report.reject(row.line(),
+                    "Запрос не найден: " + row.item().getRequestId()));
+        } catch (PersistenceException | DataAccessException e) {
+            log.error("Не удалось сохранить порцию загрузки вещей", e);
+            chunk.forEach(row -> report.reject(row.line(), "Не удалось сохранить вещь"));
+        }
+    }
+
+    private static class Report {
+        private final List<ItemImportResultDto.RowError> errors = new ArrayList<>();
+        private int created;
+
+        void reject(long line, String error) {
+            errors.add(new ItemImportResultDto.RowError(line, error));
+        }
+
+        ItemImportResultDto toDto() {
+            errors.sort(Comparator.comparingLong(ItemImportResultDto.RowError::getLine));
+            return ItemImportResultDto.builder()
+                    .created(created)
+                    .rejected(errors.size())
+                    .errors(errors)
+                    .build();
+        }
+    }
+}
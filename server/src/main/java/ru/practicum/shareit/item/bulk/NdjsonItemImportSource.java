@@ -0,0 +1,53 @@
+package ru.practicum.shareit.item.bulk;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectReader;
+import ru.practicum.shareit.item.dto.ItemImportRowDto;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+
+/**
+ * Одна строка — один JSON-объект; пустые строки пропускаются.
+ */
+class NdjsonItemImportSource implements ItemImportSource {
+
+    private final BufferedReader reader;
+    private final ObjectReader rowReader;
+    private long line;
+
+    NdjsonItemImportSource(BufferedReader reader, ObjectReader rowReader) {
+        this.reader = reader;
+        this.rowReader = rowReader.forType(ItemImportRowDto.class);
+    }
+
+    @Override
+    public ItemImportRow next() throws IOException {
+        String text;
+        while ((text = reader.readLine()) != null) {
+            line++;
+            if (text.isBlank()) {
+                continue;
+            }
+            try {
+                ItemImportRowDto item = rowReader.readValue(text);
+                return item == null
+                        ? ItemImportRow.failed(line, "Ожидался JSON-объект")
+                        : ItemImportRow.of(line, item);
+            } catch (JsonProcessingException e) {
+                return ItemImportRow.failed(line, "Некорректный JSON: " + e.getOriginalMessage());
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public long line() {
+        return line;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
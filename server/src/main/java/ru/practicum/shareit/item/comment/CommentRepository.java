@@ -5,10 +5,17 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface CommentRepository extends JpaRepository<Comment, Long> {
-    List<Comment> findAllByItemIdOrderByCreatedDesc(Long itemId);
+    @Query("""
+            SELECT comment FROM Comment comment
+            JOIN FETCH comment.author
+            WHERE comment.item.id IN :itemIds
+            ORDER BY comment.created DESC
+            """)
+    List<Comment> findAllByItemIdIn(@Param("itemIds") Collection<Long> itemIds);
 
     @Query("""
             SELECT COUNT(booking) > 0 FROM Booking booking
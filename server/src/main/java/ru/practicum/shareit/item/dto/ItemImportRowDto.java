@@ -0,0 +1,26 @@
+package ru.practicum.shareit.item.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+
+/**
+ * Строка массовой загрузки вещей; ограничения совпадают с ItemDto шлюза.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ItemImportRowDto {
+    @NotBlank(message = "Имя не может быть пустым")
+    private String name;
+
+    @NotBlank(message = "Описание не может быть пустым")
+    private String description;
+
+    @NotNull(message = "Статус доступности должен быть указан")
+    private Boolean available;
+
+    private Long requestId;
+}
@@ -0,0 +1,23 @@
+package ru.practicum.shareit.pagination;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import ru.practicum.shareit.exceptions.ValidationException;
+
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class Paging {
+
+    public static Pageable of(int from, int size, Sort sort) {
+        if (from < 0 || size <= 0) {
+            throw new ValidationException("Некорректные параметры пагинации: from=" + from + ", size=" + size);
+        }
+        return new OffsetPageable(from, size, sort);
+    }
+
+    // при переходе по курсору смещение не нужно: граница задаётся условием в запросе
+    public static Pageable first(int size, Sort sort) {
+        return of(0, size, sort);
+    }
+}
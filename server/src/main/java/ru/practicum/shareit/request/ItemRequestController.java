@@ -1,7 +1,9 @@
 package ru.practicum.shareit.request;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.pagination.KeysetCursor;
 import ru.practicum.shareit.request.dto.ItemRequestCreateDto;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 
@@ -28,8 +30,18 @@ public class ItemRequestController {
     }
 
     @GetMapping("/all")
-    public List<ItemRequestDto> getAll(@RequestHeader(USER_HEADER) Long userId) {
-        return service.getAll(userId);
+    public ResponseEntity<List<ItemRequestDto>> getAll(@RequestHeader(USER_HEADER) Long userId,
+                                                       @RequestParam(defaultValue = "0") int from,
+                                                       @RequestParam(defaultValue = "10") int size,
+                                                       @RequestParam(required = false) String cursor) {
+        List<ItemRequestDto> requests = service.getAll(userId, from, size, cursor);
+        if (requests.size() < size) {
+            return ResponseEntity.ok(requests);
+        }
+        ItemRequestDto last = requests.get(requests.size() - 1);
+        return ResponseEntity.ok()
+                .header(KeysetCursor.HEADER, new KeysetCursor(last.getCreated(), last.getId()).encode())
+                .body(requests);
     }
 
     @GetMapping("/{requestId}")
@@ -1,12 +1,32 @@
 package ru.practicum.shareit.request;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 
 public interface ItemRequestRepository extends JpaRepository<ItemRequest, Long> {
 
     List<ItemRequest> findAllByRequesterIdOrderByCreatedDesc(Long requesterId);
 
-    List<ItemRequest> findAllByRequesterIdNotOrderByCreatedDesc(Long requesterId);
+    // чужие запросы в порядке (created DESC, id DESC) по индексу idx_item_requests_created_id;
+    // первая страница и страница после курсора — разные запросы, чтобы просмотр индекса начинался с курсора
+    @Query("select r from ItemRequest r where r.requester.id <> :requesterId")
+    List<ItemRequest> findOthers(@Param("requesterId") Long requesterId, Pageable pageable);
+
+    @Query("select r from ItemRequest r where r.requester.id <> :requesterId"
+            + " and r.created <= :cursorCreated"
+            + " and (r.created < :cursorCreated or r.id < :cursorId)")
+    List<ItemRequest> findOthersAfter(@Param("requesterId") Long requesterId,
+                                      @Param("cursorCreated") LocalDateTime cursorCreated,
+                                      @Param("cursorId") Long cursorId,
+                                      Pageable pageable);
+
+    @Query("SELECT r.id FROM ItemRequest r WHERE r.id IN :ids")
+    Set<Long> findExistingIds(@Param("ids") Collection<Long> ids);
 }
@@ -11,7 +11,7 @@ public interface ItemRequestService {
 
     List<ItemRequestDto> getOwn(Long requesterId);
 
-    List<ItemRequestDto> getAll(Long requesterId);
+    List<ItemRequestDto> getAll(Long requesterId, int from, int size, String cursor);
 
     ItemRequestDto getById(Long userId, Long requestId);
 }
\ No newline at end of file
@@ -1,15 +1,21 @@
 package ru.practicum.shareit.request;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.exceptions.NotFoundException;
 import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.pagination.KeysetCursor;
+import ru.practicum.shareit.pagination.Paging;
 import ru.practicum.shareit.request.dto.ItemRequestCreateDto;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.mapper.ItemRequestMapper;
 import ru.practicum.shareit.user.UserService;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -24,6 +30,12 @@ public class ItemRequestServiceImpl implements ItemRequestService {
     private final UserService userService;
     private final ItemRepository itemRepository;
 
+    private static final Sort SORT_DESC = Sort.by(Sort.Direction.DESC, "created", "id");
+
+    // верхняя граница списка IN при загрузке вещей по запросам
+    @Value("${shareit.requests.items-lookup.chunk-size:500}")
+    private int itemsLookupChunkSize;
+
     @Override
     @Transactional
     public ItemRequestDto create(Long requesterId, ItemRequestCreateDto dto) {
@@ -35,21 +47,25 @@ public class ItemRequestServiceImpl implements ItemRequestService {
 
     @Override
     public List<ItemRequestDto> getOwn(Long requesterId) {
-        userService.getEntityOrThrow(requesterId);
+        userService.checkExists(requesterId);
         var requests = itemRequestRepository.findAllByRequesterIdOrderByCreatedDesc(requesterId);
         return mapWithItems(requests);
     }
 
     @Override
-    public List<ItemRequestDto> getAll(Long requesterId) {
-        userService.getEntityOrThrow(requesterId);
-        var requests = itemRequestRepository.findAllByRequesterIdNotOrderByCreatedDesc(requesterId);
+    public List<ItemRequestDto> getAll(Long requesterId, int from, int size, String cursor) {
+        userService.checkExists(requesterId);
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        var requests = after == null
+                ? itemRequestRepository.findOthers(requesterId, Paging.of(from, size, SORT_DESC))
+                : itemRequestRepository.findOthersAfter(requesterId, after.timestamp(), after.id(),
+                        Paging.first(size, SORT_DESC));
         return mapWithItems(requests);
     }
 
     @Override
     public ItemRequestDto getById(Long userId, Long requestId) {
-        userService.getEntityOrThrow(userId);
+        userService.checkExists(userId);
         var request = itemRequestRepository.findById(requestId)
                 .orElseThrow(() -> new NotFoundException("Запрос не найден: " + requestId));
         var items = itemRepository.findAllByRequestIdIn(List.of(request.getId()));
@@ -65,8 +81,13 @@ public class ItemRequestServiceImpl implements ItemRequestService {
                 .map(ItemRequest::getId)
                 .toList();
 
-        Map<Long, List<ru.practicum.shareit.item.model.Item>> itemsByRequest = itemRepository.findAllByRequestIdIn(requestIds).stream()
-                .collect(Collectors.groupingBy(ru.practicum.shareit.item.model.Item::getRequestId));
+        List<Item> items = new ArrayList<>();
+        for (int start = 0; start < requestIds.size(); start += itemsLookupChunkSize) {
+            int end = Math.min(start + itemsLookupChunkSize, requestIds.size());
+            items.addAll(itemRepository.findAllByRequestIdIn(requestIds.subList(start, end)));
+        }
+        Map<Long, List<Item>> itemsByRequest = items.stream()
+                .collect(Collectors.groupingBy(Item::getRequestId));
 
         return requests.stream()
                 .map(request -> ItemRequestMapper.toDto(request, itemsByRequest.getOrDefault(request.getId(), List.of())))
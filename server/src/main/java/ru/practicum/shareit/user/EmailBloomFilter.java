@@ -0,0 +1,119 @@
+package ru.practicum.shareit.user;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Фильтр Блума по нормализованным email пользователей перед проверкой занятости в БД.
+ * Ответ «нет» означает лишь, что этот экземпляр сервера такого адреса не видел: при построении
+ * и в собственных записях. Адрес, занятый через другой экземпляр, фильтр может не знать, поэтому
+ * корректность держится на уникальном индексе uq_users_email_normalized, а фильтр только
+ * экономит запрос в БД. Ответ «возможно» перепроверяется запросом.
+ * Удаление пользователя или смена email биты не снимают — это лишь добавляет ложные «возможно».
+ * До окончания построения фильтр всегда отвечает «возможно».
+ */
+@Slf4j
+@Component
+public class EmailBloomFilter {
+
+    private static final int REBUILD_PAGE_SIZE = 10_000;
+
+    private final UserRepository userRepository;
+    private final boolean enabled;
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+    private volatile boolean ready;
+
+    public EmailBloomFilter(UserRepository userRepository,
+                            @Value("${shareit.users.email-filter.enabled:true}") boolean enabled,
+                            @Value("${shareit.users.email-filter.expected-insertions:1000000}") long expectedInsertions,
+                            @Value("${shareit.users.email-filter.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.userRepository = userRepository;
+        this.enabled = enabled;
+        // m = -n·ln(p) / ln²2, k = m/n · ln2
+        long optimalBits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate)
+                / (Math.log(2) * Math.log(2)));
+        this.bitCount = enabled ? Math.max(Long.SIZE, optimalBits) : Long.SIZE;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+        this.bits = new AtomicLongArray((int) ((bitCount + Long.SIZE - 1) / Long.SIZE));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        long lastId = 0;
+        long total = 0;
+        List<UserRepository.EmailView> page;
+        do {
+            page = userRepository.findAllByIdGreaterThanOrderByIdAsc(lastId, Limit.of(REBUILD_PAGE_SIZE));
+            page.forEach(user -> put(user.getEmailNormalized()));
+            if (!page.isEmpty()) {
+                lastId = page.get(page.size() - 1).getId();
+            }
+            total += page.size();
+        } while (page.size() == REBUILD_PAGE_SIZE);
+        ready = true;
+        log.info("Фильтр email построен: {} адресов, {} бит, {} хешей", total, bitCount, hashCount);
+    }
+
+    public boolean mightContain(String emailNormalized) {
+        if (!enabled || !ready) {
+            return true;
+        }
+        long hash = hash(emailNormalized);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long bit = index(h1, h2, i);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void put(String emailNormalized) {
+        if (!enabled || emailNormalized == null) {
+            return;
+        }
+        long hash = hash(emailNormalized);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long bit = index(h1, h2, i);
+            long mask = 1L << bit;
+            bits.getAndAccumulate((int) (bit >>> 6), mask, (current, set) -> current | set);
+        }
+    }
+
+    // двойное хеширование (Kirsch–Mitzenmacher): k индексов из двух половин одного 64-битного хеша
+    private long index(int h1, int h2, int i) {
+        return Math.floorMod((long) h1 + (long) i * h2, bitCount);
+    }
+
+    // FNV-1a по байтам UTF-8 с финальным перемешиванием из MurmurHash3
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
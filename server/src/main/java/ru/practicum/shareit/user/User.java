@@ -3,21 +3,52 @@ package ru.practicum.shareit.user;
 import jakarta.persistence.*;
 import lombok.*;
 
+import java.util.Locale;
+
 @Entity
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
-@Table(name = "users")
+@Table(name = "users", uniqueConstraints = {
+        @UniqueConstraint(name = User.EMAIL_UNIQUE, columnNames = "email"),
+        @UniqueConstraint(name = User.EMAIL_NORMALIZED_UNIQUE, columnNames = "email_normalized")
+})
 public class User {
+    // имена совпадают с schema.sql: по ним UserServiceImpl отличает занятый email от прочих нарушений
+    public static final String EMAIL_UNIQUE = "uq_users_email";
+    public static final String EMAIL_NORMALIZED_UNIQUE = "uq_users_email_normalized";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // id выдаются блоками по 50 (pooled): без обращения к БД на каждую вставку, поэтому INSERT идут пакетами
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+    @SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false, length = 255)
     private String name;
 
-    @Column(nullable = false, unique = true, length = 512)
+    @Column(nullable = false, length = 512)
     private String email;
+
+    // email в нижнем регистре: уникальный индекс по нему проверяет занятость без UPPER() по всей таблице
+    @Setter(AccessLevel.NONE)
+    @Column(name = "email_normalized", nullable = false, length = 512)
+    private String emailNormalized;
+
+    public static String normalizeEmail(String email) {
+        return email == null ? null : email.toLowerCase(Locale.ROOT);
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+        this.emailNormalized = normalizeEmail(email);
+    }
+
+    // builder заполняет поля напрямую, минуя setEmail
+    @PrePersist
+    void fillEmailNormalized() {
+        emailNormalized = normalizeEmail(email);
+    }
 }
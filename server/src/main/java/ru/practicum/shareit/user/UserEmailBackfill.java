@@ -0,0 +1,92 @@
+package ru.practicum.shareit.user;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.sql.init.dependency.DependsOnDatabaseInitialization;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.config.SchemaColumns;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Заполняет users.email_normalized у строк, созданных до появления колонки.
+ * Нормализует тот же {@link User#normalizeEmail(String)}, что и приложение: SQL LOWER() зависит
+ * от локали БД и для не-ASCII адресов может дать другую строку, и тогда уникальный индекс
+ * не узнал бы в новом адресе уже занятый.
+ * После заполнения колонка становится NOT NULL, как и в сущности {@link User}: уникальный индекс
+ * пропускает сколько угодно NULL, и строка без email_normalized обошла бы проверку занятости.
+ * ALTER выполняется, только пока колонка допускает NULL, и не выполняется, если у части строк адрес
+ * совпал с чужим без учёта регистра: такие строки остаются NULL и сервер запускается.
+ */
+@Slf4j
+@Component
+@DependsOnDatabaseInitialization
+@RequiredArgsConstructor
+public class UserEmailBackfill {
+
+    private static final int PAGE_SIZE = 1_000;
+    private static final String UPDATE = "UPDATE users SET email_normalized = ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    void apply() {
+        long total = 0;
+        List<Long> conflicts = new ArrayList<>();
+        long lastId = 0;
+        List<Object[]> page;
+        do {
+            // по id, а не только по IS NULL: пропущенные строки остаются NULL и не должны читаться снова
+            page = jdbcTemplate.query(
+                    "SELECT id, email FROM users WHERE email_normalized IS NULL AND id > ? ORDER BY id LIMIT ?",
+                    (rs, rowNum) -> new Object[]{User.normalizeEmail(rs.getString("email")), rs.getLong("id")},
+                    lastId, PAGE_SIZE);
+            if (!page.isEmpty()) {
+                total += update(page, conflicts);
+                lastId = (Long) page.get(page.size() - 1)[1];
+            }
+        } while (page.size() == PAGE_SIZE);
+        if (total > 0) {
+            log.info("Заполнен email_normalized у {} пользователей", total);
+        }
+        if (!conflicts.isEmpty()) {
+            log.warn("email_normalized не заполнен у {} пользователей: адрес без учёта регистра совпадает "
+                    + "с адресом другого пользователя, нужен ручной разбор; id {}", conflicts.size(), conflicts);
+            return;
+        }
+        if (SchemaColumns.isNullable(jdbcTemplate, "users", "email_normalized")) {
+            try {
+                jdbcTemplate.execute("ALTER TABLE users ALTER COLUMN email_normalized SET NOT NULL");
+                log.info("users.email_normalized сделан NOT NULL");
+            } catch (DataAccessException e) {
+                // строку без email_normalized успел вставить экземпляр старой версии; следующий запуск дозаполнит её
+                log.warn("users.email_normalized не сделан NOT NULL: {}", e.getMessage());
+            }
+        }
+    }
+
+    // адреса, различающиеся только регистром, могли попасть в БД до уникального индекса: пакет с таким адресом
+    // повторяется по строке, и строки, занятые адресом другого пользователя, пропускаются
+    private int update(List<Object[]> page, List<Long> conflicts) {
+        try {
+            jdbcTemplate.batchUpdate(UPDATE, page);
+            return page.size();
+        } catch (DataIntegrityViolationException e) {
+            int updated = 0;
+            for (Object[] row : page) {
+                try {
+                    jdbcTemplate.update(UPDATE, row);
+                    updated++;
+                } catch (DataIntegrityViolationException duplicate) {
+                    conflicts.add((Long) row[1]);
+                }
+            }
+            return updated;
+        }
+    }
+}
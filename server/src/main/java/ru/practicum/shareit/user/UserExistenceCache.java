@@ -0,0 +1,82 @@
+package ru.practicum.shareit.user;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.config.ReadYourWrites;
+
+import java.time.Duration;
+
+/**
+ * Кэш идентификаторов существующих пользователей для {@link UserService#checkExists(Long)}.
+ * Хранится только факт существования: по попаданию проверка на путях чтения обходится без SELECT.
+ * Удаление на другом экземпляре сервера этот кэш не видит, поэтому записи живут недолго,
+ * а пути записи его не используют. При репликах в кэш не попадают результаты чтения с реплики:
+ * отстающая реплика вернула бы в него только что удалённого пользователя.
+ * Метрики доступны в /actuator/metrics/cache.* с тегом cache=users.
+ */
+@Component
+public class UserExistenceCache implements MeterBinder {
+
+    private final boolean enabled;
+    private final Cache<Long, Boolean> existing;
+    private final ReadYourWrites readYourWrites;
+
+    public UserExistenceCache(ObjectProvider<ReadYourWrites> readYourWrites,
+                              @Value("${shareit.users.cache.enabled:true}") boolean enabled,
+                              @Value("${shareit.users.cache.max-size:100000}") long maxSize,
+                              @Value("${shareit.users.cache.expire-after-write:PT30S}") Duration expireAfterWrite) {
+        this.readYourWrites = readYourWrites.getIfAvailable();
+        this.enabled = enabled;
+        this.existing = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+    }
+
+    public boolean contains(Long id) {
+        return enabled && existing.getIfPresent(id) != null;
+    }
+
+    public void put(Long id) {
+        if (enabled && !readFromReplica()) {
+            existing.put(id, Boolean.TRUE);
+        }
+    }
+
+    // бин ReadYourWrites есть только при настроенных репликах (ReplicaRoutingConfig)
+    private boolean readFromReplica() {
+        return readYourWrites != null
+                && TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                && !readYourWrites.readsFromPrimary();
+    }
+
+    /**
+     * Убирает пользователя сразу и повторно после фиксации транзакции,
+     * чтобы параллельное чтение до коммита не вернуло его в кэш.
+     */
+    public void evict(Long id) {
+        existing.invalidate(id);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    existing.invalidate(id);
+                }
+            });
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, existing, "users");
+    }
+}
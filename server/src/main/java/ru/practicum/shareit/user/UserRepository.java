@@ -1,8 +1,19 @@
 package ru.practicum.shareit.user;
 
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.List;
+
 public interface UserRepository extends JpaRepository<User, Long> {
-    boolean existsByEmailIgnoreCase(String email);
-}
\ No newline at end of file
+    boolean existsByEmailNormalized(String emailNormalized);
+
+    List<EmailView> findAllByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    interface EmailView {
+        Long getId();
+
+        String getEmailNormalized();
+    }
+}
@@ -16,4 +16,6 @@ public interface UserService {
     void delete(Long id);
 
     User getEntityOrThrow(Long id);
+
+    void checkExists(Long id);
 }
@@ -1,15 +1,19 @@
 package ru.practicum.shareit.user;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.config.ReadYourWrites;
 import ru.practicum.shareit.exceptions.ConflictException;
+import ru.practicum.shareit.exceptions.ConstraintViolations;
 import ru.practicum.shareit.exceptions.NotFoundException;
 import ru.practicum.shareit.exceptions.ValidationException;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.mapper.UserMapper;
 
 import java.util.List;
+import java.util.Objects;
 
 @Service
 @RequiredArgsConstructor
@@ -17,6 +21,8 @@ import java.util.List;
 public class UserServiceImpl implements UserService {
 
     private final UserRepository userRepository;
+    private final UserExistenceCache existenceCache;
+    private final EmailBloomFilter emailFilter;
 
     @Override
     @Transactional
@@ -24,18 +30,22 @@ public class UserServiceImpl implements UserService {
         if (dto.getEmail() == null || dto.getEmail().isBlank())
             throw new ValidationException("Поле email обязательно для заполнения");
 
-        if (userRepository.existsByEmailIgnoreCase(dto.getEmail()))
+        String email = User.normalizeEmail(dto.getEmail());
+        if (isEmailTaken(email))
             throw new ConflictException("Такой email уже используется");
 
         User entity = UserMapper.toEntity(dto);
-        User saved = userRepository.save(entity);
+        User saved = saveUnique(entity);
+        ReadYourWrites.involve(saved.getId());
+        emailFilter.put(email);
         return UserMapper.toUserDto(saved);
     }
 
     @Override
     @Transactional
     public UserDto update(Long id, UserDto patch) {
-        User user = getEntityOrThrow(id);
+        ReadYourWrites.involve(id);
+        User user = loadOrThrow(id);
 
         if (patch.getName() != null) {
             user.setName(patch.getName());
@@ -45,19 +55,22 @@ public class UserServiceImpl implements UserService {
             if (newEmail.isBlank()) {
                 throw new ValidationException("Email не может быть пустым");
             }
-            if (userRepository.existsByEmailIgnoreCase(newEmail)
-                    && !newEmail.equalsIgnoreCase(user.getEmail())) {
+            String email = User.normalizeEmail(newEmail);
+            if (!Objects.equals(email, user.getEmailNormalized()) && isEmailTaken(email)) {
                 throw new ConflictException("Такой email уже используется");
             }
             user.setEmail(newEmail);
+            emailFilter.put(email);
         }
 
-        return UserMapper.toUserDto(userRepository.save(user));
+        return UserMapper.toUserDto(saveUnique(user));
     }
 
     @Override
     public UserDto getById(Long id) {
-        return UserMapper.toUserDto(getEntityOrThrow(id));
+        // запросы /users идут без X-Sharer-User-Id: свои записи здесь — записи того пользователя, которого читают
+        ReadYourWrites.involve(id);
+        return UserMapper.toUserDto(loadOrThrow(id));
     }
 
     @Override
@@ -70,13 +83,51 @@ public class UserServiceImpl implements UserService {
     @Override
     @Transactional
     public void delete(Long id) {
+        ReadYourWrites.involve(id);
         if (!userRepository.existsById(id))
             throw new NotFoundException("Пользователь не найден: " + id);
+        existenceCache.evict(id);
         userRepository.deleteById(id);
     }
 
+    // для записи пользователь всегда читается из БД: ссылка на удалённого (в том числе другим экземпляром)
+    // пользователя довела бы дело до нарушения внешнего ключа вместо 404
+    @Override
     public User getEntityOrThrow(Long id) {
-        return userRepository.findById(id)
+        return loadOrThrow(id);
+    }
+
+    // чтению достаточно знать, что пользователь есть: после удаления на другом экземпляре
+    // ответ может оставаться прежним не дольше срока жизни записи в кэше
+    @Override
+    public void checkExists(Long id) {
+        if (!existenceCache.contains(id)) {
+            loadOrThrow(id);
+        }
+    }
+
+    // фильтр отсекает заведомо свободные адреса без запроса; «возможно занят» проверяется по уникальному индексу
+    private boolean isEmailTaken(String emailNormalized) {
+        return emailFilter.mightContain(emailNormalized) && userRepository.existsByEmailNormalized(emailNormalized);
+    }
+
+    // одновременная регистрация с одним адресом проходит обе проверки, её останавливает уникальный индекс
+    private User saveUnique(User user) {
+        try {
+            return userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            if (ConstraintViolations.violates(e, User.EMAIL_NORMALIZED_UNIQUE)
+                    || ConstraintViolations.violates(e, User.EMAIL_UNIQUE)) {
+                throw new ConflictException("Такой email уже используется");
+            }
+            throw e;
+        }
+    }
+
+    private User loadOrThrow(Long id) {
+        User user = userRepository.findById(id)
                 .orElseThrow(() -> new NotFoundException("Пользователь не найден: " + id));
+        existenceCache.put(id);
+        return user;
     }
 }
@@ -1,3 +1,11 @@
+-- SEQUENCES: id выдаются Hibernate блоками по 50 (pooled), шаг должен совпадать с allocationSize в сущностях.
+-- На существующей БД PostgresSchemaExtensions сдвигает их за MAX(id), колонки IDENTITY остаются как были.
+CREATE SEQUENCE IF NOT EXISTS users_seq         START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS item_requests_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS items_seq         START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS bookings_seq      START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS comments_seq      START WITH 1 INCREMENT BY 50;
+
 -- USERS
 CREATE TABLE IF NOT EXISTS users (
   id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
@@ -10,6 +18,12 @@ CREATE TABLE IF NOT EXISTS users (
 
 CREATE INDEX IF NOT EXISTS idx_users_email ON users (email);
 
+-- email в нижнем регистре для проверки занятости по уникальному индексу вместо UPPER(email) = UPPER(?);
+-- старые строки заполняет UserEmailBackfill той же функцией, что и приложение, а не LOWER() базы,
+-- и затем делает колонку NOT NULL: иначе строки с NULL обходили бы уникальный индекс
+ALTER TABLE users ADD COLUMN IF NOT EXISTS email_normalized VARCHAR(512);
+CREATE UNIQUE INDEX IF NOT EXISTS uq_users_email_normalized ON users (email_normalized);
+
 -- ITEM REQUESTS
 CREATE TABLE IF NOT EXISTS item_requests (
   id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
@@ -23,7 +37,10 @@ CREATE TABLE IF NOT EXISTS item_requests (
 );
 
 CREATE INDEX IF NOT EXISTS idx_item_requests_requester ON item_requests (requester_id);
-CREATE INDEX IF NOT EXISTS idx_item_requests_created   ON item_requests (created DESC);
+-- (created, id) в порядке выдачи /requests/all: страница после курсора читается диапазоном индекса без сортировки;
+-- прежний индекс только по created удаляется, новое имя не даёт пересоздавать индекс при каждом запуске
+DROP INDEX IF EXISTS idx_item_requests_created;
+CREATE INDEX IF NOT EXISTS idx_item_requests_created_id ON item_requests (created DESC, id DESC);
 
 -- ITEMS
 CREATE TABLE IF NOT EXISTS items (
@@ -47,6 +64,10 @@ CREATE INDEX IF NOT EXISTS idx_items_owner      ON items (owner_id);
 CREATE INDEX IF NOT EXISTS idx_items_available  ON items (is_available);
 CREATE INDEX IF NOT EXISTS idx_items_request    ON items (request_id);
 
+-- время последнего изменения: по нему индекс поиска каждого экземпляра подтягивает чужие изменения
+ALTER TABLE items ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP WITHOUT TIME ZONE NOT NULL DEFAULT NOW();
+CREATE INDEX IF NOT EXISTS idx_items_updated    ON items (updated_at, id);
+
 -- BOOKINGS
 CREATE TABLE IF NOT EXISTS bookings (
   id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
@@ -55,6 +76,7 @@ CREATE TABLE IF NOT EXISTS bookings (
   booker_id  BIGINT NOT NULL,
   item_id    BIGINT NOT NULL,
   status     VARCHAR(16) NOT NULL,
+  owner_id   BIGINT NOT NULL,
 
   CONSTRAINT fk_bookings_booker
     FOREIGN KEY (booker_id) REFERENCES users (id)
@@ -62,6 +84,10 @@ CREATE TABLE IF NOT EXISTS bookings (
 
   CONSTRAINT fk_bookings_item
     FOREIGN KEY (item_id) REFERENCES items (id)
+    ON UPDATE CASCADE ON DELETE RESTRICT,
+
+  CONSTRAINT fk_bookings_owner
+    FOREIGN KEY (owner_id) REFERENCES users (id)
     ON UPDATE CASCADE ON DELETE RESTRICT
 );
 
@@ -69,6 +95,15 @@ CREATE INDEX IF NOT EXISTS idx_bookings_booker ON bookings (booker_id, start_dat
 CREATE INDEX IF NOT EXISTS idx_bookings_item   ON bookings (item_id,   start_date DESC);
 CREATE INDEX IF NOT EXISTS idx_bookings_status ON bookings (status);
 
+-- владелец вещи продублирован в bookings для запросов /bookings/owner без соединения с items
+ALTER TABLE bookings ADD COLUMN IF NOT EXISTS owner_id BIGINT;
+CREATE INDEX IF NOT EXISTS idx_bookings_owner  ON bookings (owner_id,  start_date DESC);
+UPDATE bookings SET owner_id = (SELECT items.owner_id FROM items WHERE items.id = bookings.item_id)
+ WHERE owner_id IS NULL;
+-- после заполнения старых строк колонка обязательна, как и в сущности Booking. NOT NULL и внешний ключ
+-- fk_bookings_owner на существующей БД один раз добавляет PostgresSchemaExtensions: ALTER при каждом запуске
+-- брал бы ACCESS EXCLUSIVE на bookings и ждал бы длинных транзакций выгрузки
+
 -- COMMENTS
 CREATE TABLE IF NOT EXISTS comments (
   id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
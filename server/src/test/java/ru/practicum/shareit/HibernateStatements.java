@@ -0,0 +1,44 @@
+package ru.practicum.shareit;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+
+/**
+ * Число обращений к БД за одно действие по Hibernate Statistics
+ * (hibernate.generate_statistics включён в application-test.properties).
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class HibernateStatements {
+
+    /**
+     * Подготовленные SQL-запросы. Перед действием изменения теста сбрасываются в БД, а кэш первого уровня
+     * очищается: в счёт не попадают чужие INSERT, и сущности не достаются из сессии без запроса.
+     */
+    public static long countStatements(EntityManager entityManager, Runnable action) {
+        entityManager.flush();
+        entityManager.clear();
+
+        Statistics statistics = statistics(entityManager.getEntityManagerFactory());
+        statistics.clear();
+        action.run();
+        return statistics.getPrepareStatementCount();
+    }
+
+    /**
+     * Выполненные JPQL- и HQL-запросы, без загрузок по id и записей; сессия теста не трогается.
+     */
+    public static long countQueries(EntityManagerFactory entityManagerFactory, Runnable action) {
+        Statistics statistics = statistics(entityManagerFactory);
+        statistics.clear();
+        action.run();
+        return statistics.getQueryExecutionCount();
+    }
+
+    private static Statistics statistics(EntityManagerFactory entityManagerFactory) {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+}
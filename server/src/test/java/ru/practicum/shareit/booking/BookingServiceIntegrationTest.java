@@ -1,22 +1,39 @@
 package ru.practicum.shareit.booking;
 
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.dto.BookingBulkApprovalDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
 import ru.practicum.shareit.booking.dto.BookingState;
+import ru.practicum.shareit.exceptions.ConflictException;
+import ru.practicum.shareit.exceptions.NotFoundException;
 import ru.practicum.shareit.item.ItemRepository;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.pagination.KeysetCursor;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.UserRepository;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static ru.practicum.shareit.HibernateStatements.countStatements;
 
 @SpringBootTest
 @Transactional
@@ -34,6 +51,12 @@ class BookingServiceIntegrationTest {
     @Autowired
     private ItemRepository itemRepository;
 
+    @Autowired
+    private BookingAvailabilityIndex availabilityIndex;
+
+    @Autowired
+    private EntityManager entityManager;
+
     private User owner;
     private User booker;
     private Item item;
@@ -76,6 +99,7 @@ class BookingServiceIntegrationTest {
         BookingResponseDto created = bookingService.create(booker.getId(), dto);
 
         assertThat(created.getId()).isNotNull();
+        assertThat(bookingRepository.findById(created.getId()).orElseThrow().getOwnerId()).isEqualTo(owner.getId());
         assertThat(created.getStatus()).isEqualTo(BookingStatus.WAITING);
         assertThat(created.getItem().getId()).isEqualTo(item.getId());
         assertThat(created.getBooker().getId()).isEqualTo(booker.getId());
@@ -86,14 +110,290 @@ class BookingServiceIntegrationTest {
         BookingResponseDto byBooker = bookingService.getById(booker.getId(), created.getId());
         assertThat(byBooker.getStatus()).isEqualTo(BookingStatus.APPROVED);
 
-        List<Long> bookerBookings = bookingService.getForBooker(booker.getId(), BookingState.ALL).stream()
+        List<Long> bookerBookings = bookingService.getForBooker(booker.getId(), BookingState.ALL, 0, 10, null).stream()
                 .map(BookingResponseDto::getId)
                 .toList();
         assertThat(bookerBookings).contains(created.getId());
 
-        List<Long> ownerBookings = bookingService.getForOwner(owner.getId(), BookingState.ALL).stream()
+        List<Long> ownerBookings = bookingService.getForOwner(owner.getId(), BookingState.ALL, 0, 10, null).stream()
                 .map(BookingResponseDto::getId)
                 .toList();
         assertThat(ownerBookings).contains(created.getId());
     }
+
+    @Test
+    void listsArePagedByOffsetAndByKeysetCursor() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS);
+        List<Long> expected = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            // две брони с одинаковым началом проверяют разрешение ничьей по id
+            LocalDateTime bookingStart = start.plusDays(i / 2);
+            expected.add(0, bookingRepository.save(Booking.builder()
+                    .item(item)
+                    .booker(booker)
+                    .start(bookingStart)
+                    .end(bookingStart.plusHours(1))
+                    .status(BookingStatus.WAITING)
+                    .build()).getId());
+        }
+
+        assertThat(bookingService.getForOwner(owner.getId(), BookingState.FUTURE, 2, 2, null))
+                .extracting(BookingResponseDto::getId)
+                .containsExactlyElementsOf(expected.subList(2, 4));
+        // смещение, не кратное размеру страницы, не округляется вниз до начала страницы
+        assertThat(bookingService.getForOwner(owner.getId(), BookingState.FUTURE, 3, 2, null))
+                .extracting(BookingResponseDto::getId)
+                .containsExactlyElementsOf(expected.subList(3, 5));
+
+        List<Long> walked = new ArrayList<>();
+        String cursor = null;
+        List<BookingResponseDto> page;
+        do {
+            page = bookingService.getForBooker(booker.getId(), BookingState.WAITING, 0, 2, cursor);
+            page.forEach(booking -> walked.add(booking.getId()));
+            if (!page.isEmpty()) {
+                BookingResponseDto last = page.get(page.size() - 1);
+                cursor = new KeysetCursor(last.getStart(), last.getId()).encode();
+            }
+        } while (page.size() == 2 && walked.size() <= expected.size());
+
+        assertThat(walked).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    void exportStreamsWholeHistoryNewestFirst() {
+        LocalDateTime start = LocalDateTime.now().minusDays(30).truncatedTo(ChronoUnit.SECONDS);
+        List<Long> expected = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            expected.add(0, bookingRepository.save(Booking.builder()
+                    .item(item)
+                    .booker(booker)
+                    .start(start.plusDays(i))
+                    .end(start.plusDays(i).plusHours(1))
+                    .status(BookingStatus.APPROVED)
+                    .build()).getId());
+        }
+
+        List<BookingResponseDto> byBooker = new ArrayList<>();
+        bookingService.exportForBooker(booker.getId()).forEach(byBooker::add);
+        List<BookingResponseDto> byOwner = new ArrayList<>();
+        bookingService.exportForOwner(owner.getId()).forEach(byOwner::add);
+        List<BookingResponseDto> ownerAsBooker = new ArrayList<>();
+        bookingService.exportForBooker(owner.getId()).forEach(ownerAsBooker::add);
+
+        assertThat(byBooker).extracting(BookingResponseDto::getId).containsExactlyElementsOf(expected);
+        assertThat(byBooker).allSatisfy(booking -> assertThat(booking.getItem().getName()).isEqualTo("Drill"));
+        assertThat(byOwner).extracting(BookingResponseDto::getId).containsExactlyElementsOf(expected);
+        assertThat(ownerAsBooker).isEmpty();
+        assertThatThrownBy(() -> bookingService.exportForOwner(-1L)).isInstanceOf(NotFoundException.class);
+    }
+
+    @Test
+    void approveAllDecidesOwnWaitingBookingsWithOneReadAndOneUpdate() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        Long first = bookingService.create(booker.getId(), bookingDto(start, start.plusHours(1))).getId();
+        Long second = bookingService.create(booker.getId(), bookingDto(start.plusHours(2), start.plusHours(3))).getId();
+        Long decided = bookingService.create(booker.getId(), bookingDto(start.plusHours(4), start.plusHours(5))).getId();
+        bookingService.approve(owner.getId(), decided, true);
+        Item foreignItem = itemRepository.save(Item.builder()
+                .name("Saw")
+                .description("Hand saw")
+                .available(true)
+                .owner(booker)
+                .build());
+        Long foreign = bookingService.create(owner.getId(), BookingDto.builder()
+                .itemId(foreignItem.getId())
+                .start(start)
+                .end(start.plusHours(1))
+                .build()).getId();
+
+        BookingBulkApprovalDto request = BookingBulkApprovalDto.builder()
+                .bookingIds(List.of(first, second, decided, foreign, -1L, first))
+                .approved(false)
+                .build();
+        List<BookingDecisionDto> results = new ArrayList<>();
+        long statements = countStatements(entityManager, () -> results.addAll(bookingService.approveAll(owner.getId(), request)));
+
+        assertThat(statements).isEqualTo(2);
+        assertThat(results).extracting(BookingDecisionDto::getBookingId)
+                .containsExactly(first, second, decided, foreign, -1L);
+        assertThat(results).extracting(BookingDecisionDto::getOutcome).containsExactly(
+                BookingDecisionDto.Outcome.UPDATED,
+                BookingDecisionDto.Outcome.UPDATED,
+                BookingDecisionDto.Outcome.NOT_WAITING,
+                BookingDecisionDto.Outcome.NOT_OWNER,
+                BookingDecisionDto.Outcome.NOT_FOUND);
+        assertThat(bookingRepository.findById(first).orElseThrow().getStatus()).isEqualTo(BookingStatus.REJECTED);
+        assertThat(bookingRepository.findById(decided).orElseThrow().getStatus()).isEqualTo(BookingStatus.APPROVED);
+        assertThat(bookingRepository.findById(foreign).orElseThrow().getStatus()).isEqualTo(BookingStatus.WAITING);
+    }
+
+    @Test
+    void listCallsLoadItemsInTheSameStatement() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        for (int i = 0; i < 4; i++) {
+            Item other = itemRepository.save(Item.builder()
+                    .name("Item " + i)
+                    .description("Description " + i)
+                    .available(true)
+                    .owner(owner)
+                    .build());
+            bookingRepository.save(Booking.builder()
+                    .item(other)
+                    .booker(booker)
+                    .start(start.plusDays(i))
+                    .end(start.plusDays(i).plusHours(1))
+                    .status(BookingStatus.WAITING)
+                    .build());
+        }
+
+        List<BookingResponseDto> forBooker = new ArrayList<>();
+        long bookerStatements = countStatements(entityManager, () ->
+                forBooker.addAll(bookingService.getForBooker(booker.getId(), BookingState.ALL, 0, 10, null)));
+        List<BookingResponseDto> forOwner = new ArrayList<>();
+        long ownerStatements = countStatements(entityManager, () ->
+                forOwner.addAll(bookingService.getForOwner(owner.getId(), BookingState.FUTURE, 0, 10, null)));
+
+        assertThat(forBooker).hasSize(4).allSatisfy(booking -> assertThat(booking.getItem().getName()).startsWith("Item"));
+        assertThat(forOwner).hasSize(4);
+        // проверка существования пользователя + одна выборка списка вместе с вещами
+        assertThat(bookerStatements).isEqualTo(2);
+        assertThat(ownerStatements).isEqualTo(2);
+    }
+
+    @Test
+    void ownerIdIsFilledFromItemOnInsert() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        Booking saved = bookingRepository.saveAndFlush(Booking.builder()
+                .item(item)
+                .booker(booker)
+                .start(start)
+                .end(start.plusHours(1))
+                .status(BookingStatus.WAITING)
+                .build());
+        entityManager.clear();
+
+        // колонка читается из таблицы, а не из сущности в контексте персистентности
+        Object ownerId = entityManager.createNativeQuery("SELECT owner_id FROM bookings WHERE id = :id")
+                .setParameter("id", saved.getId())
+                .getSingleResult();
+        assertThat(((Number) ownerId).longValue()).isEqualTo(owner.getId());
+    }
+
+    @Test
+    void createRejectsIntervalsOverlappingActiveBookings() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        bookingService.create(booker.getId(), bookingDto(start, start.plusHours(2)));
+
+        assertThatThrownBy(() -> bookingService.create(booker.getId(), bookingDto(start.plusHours(1), start.plusHours(3))))
+                .isInstanceOf(ConflictException.class);
+        assertThat(bookingService.create(booker.getId(), bookingDto(start.plusHours(2), start.plusHours(3))).getId())
+                .isNotNull();
+    }
+
+    @Test
+    void bookingRejectedElsewhereDoesNotBlockInterval() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        Booking elsewhere = bookingRepository.save(Booking.builder()
+                .item(item)
+                .booker(booker)
+                .start(start)
+                .end(start.plusHours(2))
+                .status(BookingStatus.WAITING)
+                .build());
+        // расписание вещи попадает в кэш вместе с бронированием другого экземпляра
+        bookingService.create(booker.getId(), bookingDto(start.plusHours(3), start.plusHours(4)));
+
+        // другой экземпляр отклоняет бронирование: кэш этого экземпляра о нём не знает
+        elsewhere.setStatus(BookingStatus.REJECTED);
+        bookingRepository.save(elsewhere);
+
+        assertThat(bookingService.create(booker.getId(), bookingDto(start, start.plusHours(1))).getId())
+                .isNotNull();
+        assertThatThrownBy(() -> bookingService.create(booker.getId(),
+                bookingDto(start.plusHours(3), start.plusHours(5))))
+                .isInstanceOf(ConflictException.class);
+    }
+
+    @Test
+    void uncommittedReservationSurvivesScheduleEviction() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        // транзакция теста не завершается: первое бронирование в БД не видно, его держит только этот экземпляр
+        availabilityIndex.reserve(item.getId(), start, start.plusHours(2),
+                () -> Booking.builder().id(Long.MAX_VALUE / 2).build());
+
+        availabilityIndex.evict(item.getId());
+
+        assertThatThrownBy(() -> availabilityIndex.reserve(item.getId(), start.plusHours(1), start.plusHours(3),
+                () -> Booking.builder().id(Long.MAX_VALUE / 2 + 1).build()))
+                .isInstanceOf(ConflictException.class);
+    }
+
+    @Test
+    void overlapWithLongBookingIsFoundWhenStoredBookingsOverlap() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        // без ограничения ex_bookings_item_period в БД могут оказаться пересекающиеся бронирования
+        bookingRepository.save(Booking.builder()
+                .item(item)
+                .booker(booker)
+                .start(start)
+                .end(start.plusHours(10))
+                .status(BookingStatus.APPROVED)
+                .build());
+        bookingRepository.save(Booking.builder()
+                .item(item)
+                .booker(booker)
+                .start(start.plusHours(1))
+                .end(start.plusHours(2))
+                .status(BookingStatus.APPROVED)
+                .build());
+
+        assertThatThrownBy(() -> bookingService.create(booker.getId(),
+                bookingDto(start.plusHours(5), start.plusHours(6))))
+                .isInstanceOf(ConflictException.class);
+        assertThat(bookingService.create(booker.getId(), bookingDto(start.plusHours(10), start.plusHours(11))).getId())
+                .isNotNull();
+    }
+
+    @Test
+    void concurrentReservationsOfTheSameIntervalAdmitOnlyOne() throws Exception {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        AtomicLong ids = new AtomicLong(Long.MAX_VALUE / 2);
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch ready = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            results.add(executor.submit(() -> {
+                ready.await();
+                // транзакция каждого потока не завершается: бронирования в БД не видны, их держит только кэш
+                TransactionSynchronizationManager.initSynchronization();
+                try {
+                    availabilityIndex.reserve(item.getId(), start, start.plusHours(1),
+                            () -> Booking.builder().id(ids.incrementAndGet()).build());
+                    return true;
+                } catch (ConflictException e) {
+                    return false;
+                } finally {
+                    TransactionSynchronizationManager.clearSynchronization();
+                }
+            }));
+        }
+        ready.countDown();
+
+        int reserved = 0;
+        for (Future<Boolean> result : results) {
+            reserved += result.get(10, TimeUnit.SECONDS) ? 1 : 0;
+        }
+        executor.shutdown();
+        assertThat(reserved).isEqualTo(1);
+    }
+
+    private BookingDto bookingDto(LocalDateTime start, LocalDateTime end) {
+        return BookingDto.builder()
+                .itemId(item.getId())
+                .start(start)
+                .end(end)
+                .build();
+    }
 }
@@ -0,0 +1,56 @@
+package ru.practicum.shareit.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.UserRepository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Своя база H2: тесты меняют схему так, как она выглядит на БД, созданной прошлыми версиями.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:schema-extensions;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+        "shareit.items.search-index.enabled=false"
+})
+class PostgresSchemaExtensionsIntegrationTest {
+
+    @Autowired
+    private PostgresSchemaExtensions extensions;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void ownerIdOfExistingBookingsTableBecomesNotNull() {
+        // колонка, добавленная ALTER TABLE ... ADD COLUMN на старой таблице
+        jdbcTemplate.execute("ALTER TABLE bookings ALTER COLUMN owner_id DROP NOT NULL");
+        assertThat(SchemaColumns.isNullable(jdbcTemplate, "bookings", "owner_id")).isTrue();
+
+        extensions.apply();
+
+        assertThat(SchemaColumns.isNullable(jdbcTemplate, "bookings", "owner_id")).isFalse();
+    }
+
+    @Test
+    void sequenceBehindManuallyInsertedRowsIsMovedPastThem() {
+        // строка, вставленная в обход последовательности: через IDENTITY старой версии или вручную
+        jdbcTemplate.update("INSERT INTO users (id, name, email, email_normalized) VALUES (?, ?, ?, ?)",
+                10_000L, "Old", "old@example.com", "old@example.com");
+        try {
+            extensions.apply();
+
+            User saved = userRepository.save(User.builder().name("New").email("new@example.com").build());
+
+            assertThat(saved.getId()).isGreaterThan(10_000L);
+        } finally {
+            jdbcTemplate.update("DELETE FROM users");
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package ru.practicum.shareit.config;
+
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReadOnlyRoutingDataSourceTest {
+
+    private final DataSource primary = mock(DataSource.class);
+    private final DataSource broken = mock(DataSource.class);
+    private final DataSource healthy = mock(DataSource.class);
+    private final Connection primaryConnection = mock(Connection.class);
+    private final Connection replicaConnection = mock(Connection.class);
+
+    @Test
+    void failedReplicaIsSkippedDuringCooldown() throws SQLException {
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        when(broken.getConnection()).thenThrow(new SQLException("Connection is not available"));
+        when(healthy.getConnection()).thenReturn(replicaConnection);
+        ReadOnlyRoutingDataSource routing = new ReadOnlyRoutingDataSource(primary, List.of(broken, healthy),
+                new ReadYourWrites(Duration.ZERO), Duration.ofMinutes(1));
+
+        for (int i = 0; i < 4; i++) {
+            assertThat(routing.getConnection()).isSameAs(replicaConnection);
+        }
+        // после первой ошибки к реплике больше не обращаются, пока не истечёт cooldown
+        verify(broken, times(1)).getConnection();
+    }
+
+    @Test
+    void failedReplicaIsRetriedAfterCooldown() throws SQLException {
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        when(broken.getConnection())
+                .thenThrow(new SQLException("Connection is not available"))
+                .thenReturn(replicaConnection);
+        ReadOnlyRoutingDataSource routing = new ReadOnlyRoutingDataSource(primary, List.of(broken),
+                new ReadYourWrites(Duration.ZERO), Duration.ZERO);
+
+        assertThat(routing.getConnection()).isSameAs(primaryConnection);
+        assertThat(routing.getConnection()).isSameAs(replicaConnection);
+    }
+
+    @Test
+    void explicitCredentialsAreNotSupported() {
+        ReadOnlyRoutingDataSource routing = new ReadOnlyRoutingDataSource(primary, List.of(healthy),
+                new ReadYourWrites(Duration.ZERO), Duration.ofMinutes(1));
+
+        assertThatThrownBy(() -> routing.getConnection("sa", ""))
+                .isInstanceOf(SQLFeatureNotSupportedException.class);
+    }
+}
@@ -0,0 +1,174 @@
+package ru.practicum.shareit.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.BookingService;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.UserExistenceCache;
+import ru.practicum.shareit.user.UserRepository;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Две базы H2: основная и «отстающая» реплика, в которую данные копируются только в setUp.
+ * Так видно, куда ушло чтение: вещь, созданная в тесте, есть только в основной базе.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:rw-primary;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+        "shareit.datasource.replica.urls=" + ReplicaRoutingIntegrationTest.REPLICA_URL,
+        "shareit.datasource.replica.sticky-window=PT0.3S",
+        "shareit.items.search-index.enabled=false",
+        "shareit.users.email-filter.enabled=false"
+})
+@AutoConfigureMockMvc
+class ReplicaRoutingIntegrationTest {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:rw-replica;MODE=PostgreSQL;DB_CLOSE_DELAY=-1";
+
+    private static final String USER_HEADER = "X-Sharer-User-Id";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private UserExistenceCache existenceCache;
+
+    @Autowired
+    private HikariDataSource primaryDataSource;
+
+    private User owner;
+    private User reader;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        bookingRepository.deleteAll();
+        itemRepository.deleteAll();
+        userRepository.deleteAll();
+        owner = userRepository.save(User.builder().name("Owner").email("owner@example.com").build());
+        reader = userRepository.save(User.builder().name("Reader").email("reader@example.com").build());
+        copyPrimaryToReplica();
+    }
+
+    @Test
+    void readOnlyTransactionsGoToReplicaExceptRecentWriter() throws Exception {
+        String created = mockMvc.perform(post("/items")
+                        .header(USER_HEADER, owner.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Дрель\",\"description\":\"Аккумуляторная\",\"available\":true}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        long itemId = Long.parseLong(created.replaceAll(".*\"id\":(\\d+).*", "$1"));
+
+        // запись ушла в основную базу, а readOnly-чтение вне запроса идёт в реплику и её не видит
+        assertThat(new JdbcTemplate(primaryDataSource)
+                .queryForObject("SELECT COUNT(*) FROM items WHERE id = ?", Integer.class, itemId)).isEqualTo(1);
+        assertThat(itemRepository.existsById(itemId)).isFalse();
+
+        // владелец только что писал — его чтение идёт в основную базу
+        mockMvc.perform(get("/items/{id}", itemId).header(USER_HEADER, owner.getId()))
+                .andExpect(status().isOk());
+        // остальные читают с реплики
+        mockMvc.perform(get("/items/{id}", itemId).header(USER_HEADER, reader.getId()))
+                .andExpect(status().isNotFound());
+
+        Thread.sleep(500);
+
+        // окно истекло — владелец тоже читает с реплики
+        mockMvc.perform(get("/items/{id}", itemId).header(USER_HEADER, owner.getId()))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void userWritesWithoutHeaderAreReadBackFromPrimary() throws Exception {
+        mockMvc.perform(patch("/users/{id}", reader.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Renamed\"}"))
+                .andExpect(status().isOk());
+
+        // заголовка нет, но запись засчитана изменённому пользователю — его чтение идёт в основную БД
+        mockMvc.perform(get("/users/{id}", reader.getId()))
+                .andExpect(jsonPath("$.name").value("Renamed"));
+
+        Thread.sleep(500);
+
+        mockMvc.perform(get("/users/{id}", reader.getId()))
+                .andExpect(jsonPath("$.name").value("Reader"));
+    }
+
+    @Test
+    void replicaReadsDoNotFillUserExistenceCache() throws Exception {
+        mockMvc.perform(get("/requests").header(USER_HEADER, reader.getId()))
+                .andExpect(status().isOk());
+
+        // отстающая реплика могла бы так вернуть в кэш пользователя, уже удалённого в основной БД
+        assertThat(existenceCache.contains(reader.getId())).isFalse();
+    }
+
+    @Test
+    void exportReadsFromReplica() throws Exception {
+        Item item = itemRepository.save(Item.builder()
+                .name("Дрель").description("Аккумуляторная").available(true).owner(owner).build());
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        bookingRepository.save(Booking.builder()
+                .item(item).booker(reader).start(start).end(start.plusHours(1)).status(BookingStatus.WAITING)
+                .build());
+
+        // выгрузка открывает свою транзакцию только для чтения, поэтому свежей брони в реплике не видит
+        List<BookingResponseDto> exported = new ArrayList<>();
+        bookingService.exportForBooker(reader.getId()).forEach(exported::add);
+        assertThat(exported).isEmpty();
+
+        copyPrimaryToReplica();
+        bookingService.exportForBooker(reader.getId()).forEach(exported::add);
+        assertThat(exported).hasSize(1);
+    }
+
+    // имитация репликации: снимок основной базы целиком переносится в реплику
+    private void copyPrimaryToReplica() throws Exception {
+        List<String> script = new JdbcTemplate(primaryDataSource).queryForList("SCRIPT", String.class);
+        try (Connection replica = DriverManager.getConnection(REPLICA_URL, "sa", "");
+             Statement statement = replica.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+            for (String sql : script) {
+                statement.execute(sql);
+            }
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package ru.practicum.shareit.exceptions;
+
+import org.hibernate.exception.ConstraintViolationException;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.sql.SQLException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConstraintViolationsTest {
+
+    @Test
+    void recognizesExclusionViolationBySqlState() {
+        DataIntegrityViolationException error = new DataIntegrityViolationException("could not execute statement",
+                new SQLException("conflicting key value", "23P01"));
+
+        assertThat(ConstraintViolations.violates(error, "ex_bookings_item_period", "23P01")).isTrue();
+    }
+
+    @Test
+    void recognizesViolationByConstraintName() {
+        SQLException sql = new SQLException("duplicate key value", "23505");
+        DataIntegrityViolationException error = new DataIntegrityViolationException("could not execute statement",
+                new ConstraintViolationException("could not execute statement", sql, "UQ_USERS_EMAIL_NORMALIZED"));
+
+        assertThat(ConstraintViolations.violates(error, "uq_users_email_normalized")).isTrue();
+    }
+
+    @Test
+    void ignoresOtherIntegrityViolations() {
+        SQLException sql = new SQLException("insert or update violates foreign key constraint \"fk_bookings_booker\"",
+                "23503");
+        DataIntegrityViolationException error = new DataIntegrityViolationException("could not execute statement",
+                new ConstraintViolationException("could not execute statement", sql, "fk_bookings_booker"));
+
+        assertThat(ConstraintViolations.violates(error, "ex_bookings_item_period", "23P01")).isFalse();
+        assertThat(ConstraintViolations.violates(error, "uq_users_email_normalized")).isFalse();
+    }
+}
@@ -0,0 +1,63 @@
+package ru.practicum.shareit.generator;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.UserRepository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// отдельная БД, чтобы сгенерированные данные не попали в контекст остальных тестов
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:generator;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+        "shareit.generator.users=200",
+        "shareit.generator.batch-size=50",
+        "shareit.generator.requests-per-user=0.5",
+        "shareit.generator.item-request-rate=0.2"
+})
+@ActiveProfiles({"test", "generator"})
+class DatasetGeneratorIntegrationTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void generatesConsistentDatasetOnStartup() {
+        assertThat(count("users")).isEqualTo(200);
+        assertThat(count("item_requests")).isPositive();
+        assertThat(count("items")).isPositive();
+        assertThat(count("bookings")).isGreaterThan(count("items"));
+        assertThat(count("comments")).isPositive();
+
+        Long selfBookings = jdbcTemplate.queryForObject("""
+                SELECT COUNT(*) FROM bookings b JOIN items i ON i.id = b.item_id WHERE b.booker_id = i.owner_id
+                """, Long.class);
+        assertThat(selfBookings).isZero();
+
+        Long overlaps = jdbcTemplate.queryForObject("""
+                SELECT COUNT(*) FROM bookings a JOIN bookings b
+                  ON a.item_id = b.item_id AND a.id < b.id
+                 AND a.start_date < b.end_date AND b.start_date < a.end_date
+                WHERE a.status IN ('WAITING', 'APPROVED') AND b.status IN ('WAITING', 'APPROVED')
+                """, Long.class);
+        assertThat(overlaps).isZero();
+    }
+
+    @Test
+    void identityContinuesAfterGeneratedIds() {
+        User saved = userRepository.save(User.builder().name("Новый").email("new@shareit.ru").build());
+
+        assertThat(saved.getId()).isGreaterThan(200);
+        userRepository.delete(saved);
+    }
+
+    private long count(String table) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Long.class);
+    }
+}
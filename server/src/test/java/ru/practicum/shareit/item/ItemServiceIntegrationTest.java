@@ -1,5 +1,6 @@
 package ru.practicum.shareit.item;
 
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -8,7 +9,9 @@ import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.booking.Booking;
 import ru.practicum.shareit.booking.BookingRepository;
 import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.item.comment.Comment;
 import ru.practicum.shareit.item.comment.CommentDto;
+import ru.practicum.shareit.item.comment.CommentRepository;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.request.ItemRequest;
@@ -17,8 +20,10 @@ import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.UserRepository;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static ru.practicum.shareit.HibernateStatements.countStatements;
 
 @SpringBootTest
 @Transactional
@@ -39,6 +44,15 @@ class ItemServiceIntegrationTest {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Autowired
+    private ItemSearchIndex searchIndex;
+
+    @Autowired
+    private EntityManager entityManager;
+
     private User owner;
     private User requester;
     private User booker;
@@ -110,4 +124,126 @@ class ItemServiceIntegrationTest {
         assertThat(detailed.getComments()).extracting(CommentDto::getText).contains("Отличная вещь");
         assertThat(detailed.getLastBooking()).isNotNull();
     }
+
+    @Test
+    void getByOwnerFillsBookingsAndCommentsWithConstantNumberOfStatements() {
+        createItemsWithHistory(3);
+        long statementsForFewItems = countStatements(entityManager, () -> itemService.getByOwner(owner.getId()));
+
+        createItemsWithHistory(30);
+        List<ItemDto> items = itemService.getByOwner(owner.getId());
+        long statementsForManyItems = countStatements(entityManager, () -> itemService.getByOwner(owner.getId()));
+
+        assertThat(items).hasSize(33).allSatisfy(item -> {
+            assertThat(item.getLastBooking()).isNotNull();
+            assertThat(item.getNextBooking()).isNotNull();
+            assertThat(item.getComments()).extracting(CommentDto::getAuthorName).containsExactly(booker.getName());
+        });
+        assertThat(statementsForManyItems)
+                .isEqualTo(statementsForFewItems)
+                .isEqualTo(3);
+    }
+
+    @Test
+    void searchFromIndexIgnoresCaseForCyrillicAndMatchesDatabaseQuery() {
+        Item drill = itemRepository.save(Item.builder()
+                .name("Дрель ударная")
+                .description("Мощная ДРЕЛЬ для бетона")
+                .available(true)
+                .owner(owner)
+                .build());
+        Item hidden = itemRepository.save(Item.builder()
+                .name("Старая дрель")
+                .description("Сломана")
+                .available(false)
+                .owner(owner)
+                .build());
+        searchIndex.put(drill);
+        searchIndex.put(hidden);
+
+        assertThat(itemService.search("дРЕЛЬ"))
+                .extracting(ItemDto::getId)
+                .containsExactly(drill.getId())
+                .containsExactlyElementsOf(itemRepository.search("дРЕЛЬ").stream().map(Item::getId).toList());
+        assertThat(itemService.search("БЕТ")).extracting(ItemDto::getName).containsExactly("Дрель ударная");
+
+        drill.setAvailable(false);
+        searchIndex.put(drill);
+        assertThat(itemService.search("дрель")).isEmpty();
+    }
+
+    @Test
+    void refreshPicksUpItemsChangedOutsideThisIndex() {
+        // запись другого экземпляра сервера: в БД есть, в локальный индекс не попадала
+        Item saw = itemRepository.save(Item.builder()
+                .name("Пила цепная")
+                .description("Бензиновая")
+                .available(true)
+                .owner(owner)
+                .build());
+
+        searchIndex.refresh();
+        assertThat(itemService.search("цепн")).extracting(ItemDto::getId).containsExactly(saw.getId());
+
+        saw.setAvailable(false);
+        itemRepository.saveAndFlush(saw);
+        searchIndex.refresh();
+        assertThat(itemService.search("цепн")).isEmpty();
+    }
+
+    @Test
+    void changedItemIsFoundByNewTextOnlyBeforeAndAfterCompaction() {
+        Item saw = itemRepository.save(Item.builder()
+                .name("Пила цепная")
+                .description("Бензиновая")
+                .available(true)
+                .owner(owner)
+                .build());
+        searchIndex.put(saw);
+        searchIndex.compact();
+
+        // старые триграммы вещи остаются в сжатых списках до следующего уплотнения
+        saw.setName("Пила дисковая");
+        itemRepository.save(saw);
+        searchIndex.put(saw);
+        assertThat(itemService.search("цепн")).isEmpty();
+        assertThat(itemService.search("ДИСКОВ")).extracting(ItemDto::getId).containsExactly(saw.getId());
+
+        searchIndex.compact();
+        assertThat(itemService.search("цепн")).isEmpty();
+        assertThat(itemService.search("ДИСКОВ")).extracting(ItemDto::getId).containsExactly(saw.getId());
+        assertThat(itemService.search("бензин")).extracting(ItemDto::getId).containsExactly(saw.getId());
+    }
+
+    private void createItemsWithHistory(int count) {
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < count; i++) {
+            Item item = itemRepository.save(Item.builder()
+                    .name("Item " + i)
+                    .description("Description " + i)
+                    .available(true)
+                    .owner(owner)
+                    .build());
+            bookingRepository.save(Booking.builder()
+                    .item(item)
+                    .booker(booker)
+                    .start(now.minusDays(5))
+                    .end(now.minusDays(4))
+                    .status(BookingStatus.APPROVED)
+                    .build());
+            bookingRepository.save(Booking.builder()
+                    .item(item)
+                    .booker(booker)
+                    .start(now.plusDays(1))
+                    .end(now.plusDays(2))
+                    .status(BookingStatus.APPROVED)
+                    .build());
+            commentRepository.save(Comment.builder()
+                    .item(item)
+                    .author(booker)
+                    .text("Comment " + i)
+                    .created(now.minusDays(3))
+                    .build());
+        }
+    }
 }
@@ -0,0 +1,193 @@
+package ru.practicum.shareit.item.bulk;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.shareit.exceptions.NotFoundException;
+import ru.practicum.shareit.exceptions.ValidationException;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.dto.ItemImportResultDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.ItemRequest;
+import ru.practicum.shareit.request.ItemRequestRepository;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.UserRepository;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static ru.practicum.shareit.HibernateStatements.countQueries;
+
+/**
+ * Без общей транзакции теста: каждая порция загрузки фиксируется сама, как в работе,
+ * поэтому созданное удаляется явно после каждого теста.
+ */
+@SpringBootTest(properties = "shareit.items.import.chunk-size=3")
+class ItemImporterIntegrationTest {
+
+    @Autowired
+    private ItemImporter importer;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private ItemRequestRepository itemRequestRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private User owner;
+    private User requester;
+    private ItemRequest request;
+
+    @BeforeEach
+    void setUp() {
+        owner = userRepository.save(User.builder()
+                .name("Partner")
+                .email("partner@example.com")
+                .build());
+        requester = userRepository.save(User.builder()
+                .name("Requester")
+                .email("requester@example.com")
+                .build());
+        request = itemRequestRepository.save(ItemRequest.builder()
+                .description("Need a tent")
+                .requester(requester)
+                .created(LocalDateTime.now().minusDays(1))
+                .build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        itemRepository.deleteAll(itemRepository.findAllByOwnerIdOrderByIdAsc(owner.getId()));
+        itemRequestRepository.delete(request);
+        userRepository.deleteAll(List.of(owner, requester));
+    }
+
+    @Test
+    void ndjsonImportCreatesValidRowsAndReportsInvalidOnes() {
+        String body = """
+                {"name":"Палатка","description":"Двухместная","available":true,"requestId":%d}
+                {"name":"Спальник","description":"До -10","available":false}
+
+                {"name":"Коврик","description":
+                {"name":"","description":"Без имени","available":true}
+                {"name":"Котелок","description":"Алюминиевый","available":true,"requestId":999999}
+                {"name":"Горелка","description":"Газовая"}
+                """.formatted(request.getId());
+
+        ItemImportResultDto result = importer.importItems(owner.getId(), ItemImportFormat.NDJSON, stream(body));
+
+        assertThat(result.getCreated()).isEqualTo(2);
+        assertThat(result.getRejected()).isEqualTo(4);
+        assertThat(result.getErrors()).extracting(ItemImportResultDto.RowError::getLine)
+                .containsExactly(4L, 5L, 6L, 7L);
+        assertThat(result.getErrors()).extracting(ItemImportResultDto.RowError::getError)
+                .satisfies(errors -> assertThat(errors.get(0)).startsWith("Некорректный JSON"))
+                .endsWith("Имя не может быть пустым",
+                        "Запрос не найден: 999999",
+                        "Статус доступности должен быть указан");
+
+        List<Item> items = itemRepository.findAllByOwnerIdOrderByIdAsc(owner.getId());
+        assertThat(items).extracting(Item::getName, Item::getAvailable, Item::getRequestId)
+                .containsExactly(
+                        tuple("Палатка", true, request.getId()),
+                        tuple("Спальник", false, null));
+    }
+
+    @Test
+    void csvImportSupportsQuotedValuesAndReportsBadColumns() {
+        String body = "\uFEFFName,Description,Available,RequestId\r\n"
+                + "Палатка,\"Двухместная, с тамбуром\",true," + request.getId() + "\r\n"
+                + "\"Спальник \"\"Зима\"\"\",\"Тёплый\nдо -20\",FALSE,\r\n"
+                + "Коврик,Туристический,yes,\r\n"
+                + "Котелок,Алюминиевый,true,abc\r\n";
+
+        ItemImportResultDto result = importer.importItems(owner.getId(), ItemImportFormat.CSV, stream(body));
+
+        assertThat(result.getCreated()).isEqualTo(2);
+        assertThat(result.getErrors())
+                .extracting(ItemImportResultDto.RowError::getLine, ItemImportResultDto.RowError::getError)
+                .containsExactly(
+                        tuple(5L, "Некорректное значение available: yes"),
+                        tuple(6L, "Некорректное значение requestId: abc"));
+        assertThat(itemRepository.findAllByOwnerIdOrderByIdAsc(owner.getId()))
+                .extracting(Item::getName, Item::getDescription, Item::getAvailable)
+                .containsExactly(
+                        tuple("Палатка", "Двухместная, с тамбуром", true),
+                        tuple("Спальник \"Зима\"", "Тёплый\nдо -20", false));
+    }
+
+    @Test
+    void requestsAreLoadedOncePerChunk() {
+        String body = IntStream.rangeClosed(1, 7)
+                .mapToObj(i -> "{\"name\":\"Вещь " + i + "\",\"description\":\"Описание\",\"available\":true,"
+                        + "\"requestId\":" + request.getId() + "}")
+                .collect(Collectors.joining("\n"));
+        AtomicReference<ItemImportResultDto> result = new AtomicReference<>();
+
+        long queries = countQueries(entityManagerFactory, () ->
+                result.set(importer.importItems(owner.getId(), ItemImportFormat.NDJSON, stream(body))));
+
+        assertThat(result.get().getCreated()).isEqualTo(7);
+        assertThat(queries).isEqualTo(3);
+        assertThat(itemRepository.findAllByRequestIdIn(List.of(request.getId()))).hasSize(7);
+    }
+
+    @Test
+    void failedChunkDoesNotRollBackEarlierChunks() {
+        // имя длиннее колонки items.name проходит проверку строки, но ломает INSERT второй порции
+        String tooLong = "Я".repeat(300);
+        String body = IntStream.rangeClosed(1, 7)
+                .mapToObj(i -> "{\"name\":\"" + (i == 5 ? tooLong : "Вещь " + i)
+                        + "\",\"description\":\"Описание\",\"available\":true}")
+                .collect(Collectors.joining("\n"));
+
+        ItemImportResultDto result = importer.importItems(owner.getId(), ItemImportFormat.NDJSON, stream(body));
+
+        assertThat(result.getCreated()).isEqualTo(4);
+        assertThat(result.getErrors())
+                .extracting(ItemImportResultDto.RowError::getLine, ItemImportResultDto.RowError::getError)
+                .containsExactly(
+                        tuple(4L, "Не удалось сохранить вещь"),
+                        tuple(5L, "Не удалось сохранить вещь"),
+                        tuple(6L, "Не удалось сохранить вещь"));
+        assertThat(itemRepository.findAllByOwnerIdOrderByIdAsc(owner.getId()))
+                .extracting(Item::getName)
+                .containsExactly("Вещь 1", "Вещь 2", "Вещь 3", "Вещь 7");
+    }
+
+    @Test
+    void csvWithoutRequiredColumnIsRejected() {
+        assertThatThrownBy(() -> importer.importItems(owner.getId(), ItemImportFormat.CSV,
+                stream("name,description\nПалатка,Двухместная\n")))
+                .isInstanceOf(ValidationException.class)
+                .hasMessage("В заголовке CSV нет колонки available");
+    }
+
+    @Test
+    void unknownOwnerIsRejectedBeforeReadingBody() {
+        assertThatThrownBy(() -> importer.importItems(-1L, ItemImportFormat.NDJSON, stream("")))
+                .isInstanceOf(NotFoundException.class);
+    }
+
+    private static InputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
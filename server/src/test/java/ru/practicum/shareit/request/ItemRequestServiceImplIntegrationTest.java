@@ -7,17 +7,21 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.item.ItemRepository;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.pagination.KeysetCursor;
 import ru.practicum.shareit.request.dto.ItemRequestCreateDto;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.UserRepository;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
-@SpringBootTest
+// маленький предел IN, чтобы загрузка вещей шла несколькими порциями
+@SpringBootTest(properties = "shareit.requests.items-lookup.chunk-size=2")
 @Transactional
 class ItemRequestServiceImplIntegrationTest {
 
@@ -120,13 +124,48 @@ class ItemRequestServiceImplIntegrationTest {
                 .created(LocalDateTime.now().minusHours(2))
                 .build());
 
-        List<ItemRequestDto> results = itemRequestService.getAll(requester.getId());
+        List<ItemRequestDto> results = itemRequestService.getAll(requester.getId(), 0, 10, null);
 
         assertThat(results)
                 .extracting(ItemRequestDto::getId)
                 .containsExactly(newer.getId(), older.getId());
     }
 
+    @Test
+    void getAllPagesByCursorAndLoadsItemsForEveryRequest() {
+        // точность как у TIMESTAMP в БД: сущности в тесте берутся из кэша сессии, а не перечитываются
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        List<ItemRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            // у двух запросов одинаковое время: порядок между ними задаёт id
+            ItemRequest request = itemRequestRepository.save(ItemRequest.builder()
+                    .description("Need thing " + i)
+                    .requester(otherUser)
+                    .created(now.minusHours(i == 4 ? 3 : i))
+                    .build());
+            itemRepository.save(Item.builder()
+                    .name("Thing " + i)
+                    .description("For request " + i)
+                    .available(true)
+                    .owner(owner)
+                    .requestId(request.getId())
+                    .build());
+            requests.add(request);
+        }
+
+        List<ItemRequestDto> first = itemRequestService.getAll(requester.getId(), 0, 3, null);
+        ItemRequestDto last = first.get(first.size() - 1);
+        String cursor = new KeysetCursor(last.getCreated(), last.getId()).encode();
+        List<ItemRequestDto> second = itemRequestService.getAll(requester.getId(), 0, 3, cursor);
+
+        assertThat(first).extracting(ItemRequestDto::getId)
+                .containsExactly(requests.get(0).getId(), requests.get(1).getId(), requests.get(2).getId());
+        assertThat(second).extracting(ItemRequestDto::getId)
+                .containsExactly(requests.get(4).getId(), requests.get(3).getId());
+        assertThat(first).allSatisfy(dto -> assertThat(dto.getItems()).hasSize(1));
+        assertThat(second).allSatisfy(dto -> assertThat(dto.getItems()).hasSize(1));
+    }
+
     @Test
     void getByIdReturnsRequestWithItems() {
         ItemRequest request = itemRequestRepository.save(ItemRequest.builder()
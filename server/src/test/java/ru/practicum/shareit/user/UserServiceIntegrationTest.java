@@ -1,15 +1,32 @@
 package ru.practicum.shareit.user;
 
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.BaseSessionEventListener;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.config.SchemaColumns;
+import ru.practicum.shareit.exceptions.ConflictException;
+import ru.practicum.shareit.exceptions.ConstraintViolations;
+import ru.practicum.shareit.exceptions.NotFoundException;
 import ru.practicum.shareit.user.dto.UserDto;
 
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static ru.practicum.shareit.HibernateStatements.countQueries;
+import static ru.practicum.shareit.HibernateStatements.countStatements;
 
 @SpringBootTest
 @Transactional
@@ -21,6 +38,18 @@ class UserServiceIntegrationTest {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private EmailBloomFilter emailFilter;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     @BeforeEach
     void cleanUp() {
         userRepository.deleteAll();
@@ -52,4 +81,144 @@ class UserServiceIntegrationTest {
         userService.delete(created.getId());
         assertThat(userRepository.existsById(created.getId())).isFalse();
     }
+
+    @Test
+    void checkExistsSkipsSelectForCachedUserAndForgetsDeletedOne() {
+        UserDto created = userService.create(UserDto.builder()
+                .name("Bob")
+                .email("bob@example.com")
+                .build());
+        Long id = created.getId();
+
+        assertThat(countStatements(entityManager, () -> userService.checkExists(id))).isEqualTo(1);
+        assertThat(countStatements(entityManager, () -> userService.checkExists(id))).isZero();
+        // путь записи кэшу не доверяет и всегда читает пользователя
+        assertThat(countStatements(entityManager, () -> userService.getEntityOrThrow(id))).isEqualTo(1);
+
+        userService.delete(id);
+
+        assertThatThrownBy(() -> userService.checkExists(id))
+                .isInstanceOf(NotFoundException.class);
+        assertThatThrownBy(() -> userService.getEntityOrThrow(id))
+                .isInstanceOf(NotFoundException.class);
+    }
+
+    @Test
+    void usersAreInsertedInJdbcBatches() {
+        // 120 строк пакетами по 50 — ровно три executeBatch; без пакетов их нет вовсе
+        assertThat(countUserInsertBatches(120, 50)).isEqualTo(3);
+        assertThat(countUserInsertBatches(120, 1)).isZero();
+    }
+
+    @Test
+    void duplicateEmailIsReportedByNamedUniqueIndex() {
+        userRepository.saveAndFlush(User.builder().name("Alice").email("alice@example.com").build());
+
+        // в обход проверок сервиса: так выглядит проигранная гонка двух регистраций
+        assertThatThrownBy(() -> userRepository.saveAndFlush(
+                User.builder().name("Twin").email("ALICE@example.com").build()))
+                .isInstanceOf(DataIntegrityViolationException.class)
+                .satisfies(e -> assertThat(ConstraintViolations.violates(e, User.EMAIL_NORMALIZED_UNIQUE)).isTrue());
+    }
+
+    @Test
+    void userWithoutNormalizedEmailIsRejectedByDatabase() {
+        // так пишет экземпляр, не знающий о колонке email_normalized
+        assertThatThrownBy(() -> jdbcTemplate.update(
+                "INSERT INTO users (name, email) VALUES (?, ?)", "Old", "old@example.com"))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void backfillSkipsEmailsDifferingOnlyInCaseAndSetsNotNullOnce() {
+        // ALTER TABLE в H2 фиксирует транзакцию, поэтому тест идёт без неё и убирает за собой сам
+        jdbcTemplate.execute("ALTER TABLE users ALTER COLUMN email_normalized DROP NOT NULL");
+        try {
+            // так лежат адреса, вставленные до уникального индекса проверкой «найти, затем вставить»
+            String insert = "INSERT INTO users (id, name, email) VALUES (?, ?, ?)";
+            jdbcTemplate.update(insert, 1_000_001L, "Eve", "Eve@example.com");
+            jdbcTemplate.update(insert, 1_000_002L, "Eve 2", "eve@EXAMPLE.com");
+            jdbcTemplate.update(insert, 1_000_003L, "Frank", "Frank@example.com");
+
+            new UserEmailBackfill(jdbcTemplate).apply();
+
+            assertThat(jdbcTemplate.queryForList(
+                    "SELECT email_normalized FROM users WHERE email_normalized IS NOT NULL", String.class))
+                    .containsExactlyInAnyOrder("eve@example.com", "frank@example.com");
+            assertThat(jdbcTemplate.queryForObject(
+                    "SELECT email FROM users WHERE email_normalized IS NULL", String.class))
+                    .isEqualTo("eve@EXAMPLE.com");
+            assertThat(SchemaColumns.isNullable(jdbcTemplate, "users", "email_normalized")).isTrue();
+
+            jdbcTemplate.update("DELETE FROM users WHERE email_normalized IS NULL");
+            new UserEmailBackfill(jdbcTemplate).apply();
+            assertThat(SchemaColumns.isNullable(jdbcTemplate, "users", "email_normalized")).isFalse();
+        } finally {
+            jdbcTemplate.update("DELETE FROM users");
+            if (SchemaColumns.isNullable(jdbcTemplate, "users", "email_normalized")) {
+                jdbcTemplate.execute("ALTER TABLE users ALTER COLUMN email_normalized SET NOT NULL");
+            }
+        }
+    }
+
+    @Test
+    void emailUniquenessIgnoresCase() {
+        UserDto alice = userService.create(UserDto.builder().name("Alice").email("Alice@Example.com").build());
+        UserDto bob = userService.create(UserDto.builder().name("Bob").email("bob@example.com").build());
+
+        assertThatThrownBy(() -> userService.create(UserDto.builder().name("Other").email("alice@EXAMPLE.com").build()))
+                .isInstanceOf(ConflictException.class);
+        assertThatThrownBy(() -> userService.update(bob.getId(), UserDto.builder().email("ALICE@example.com").build()))
+                .isInstanceOf(ConflictException.class);
+
+        userService.update(alice.getId(), UserDto.builder().email("ALICE@EXAMPLE.COM").build());
+        User stored = userRepository.findById(alice.getId()).orElseThrow();
+        assertThat(stored.getEmail()).isEqualTo("ALICE@EXAMPLE.COM");
+        assertThat(stored.getEmailNormalized()).isEqualTo("alice@example.com");
+    }
+
+    @Test
+    void unseenEmailSkipsExistenceQuery() {
+        assertThat(emailFilter.mightContain("carol@example.com")).isFalse();
+
+        long queries = countQueries(entityManagerFactory, () ->
+                userService.create(UserDto.builder().name("Carol").email("Carol@example.com").build()));
+
+        assertThat(queries).isZero();
+        assertThat(emailFilter.mightContain("carol@example.com")).isTrue();
+    }
+
+    @Test
+    void concurrentlyTakenEmailIsRejectedByUniqueIndex() {
+        // запись в обход сервиса: фильтр о ней не знает, и конфликт ловит уникальный индекс
+        userRepository.saveAndFlush(User.builder().name("Dave").email("dave@example.com").build());
+
+        assertThatThrownBy(() -> userService.create(UserDto.builder().name("Dave 2").email("DAVE@example.com").build()))
+                .isInstanceOf(ConflictException.class);
+    }
+
+    // отдельная сессия со своим размером пакета; считаются вызовы executeBatch, а не подготовленные запросы,
+    // число которых зависит ещё и от остатка id-блока последовательности
+    private long countUserInsertBatches(int count, int batchSize) {
+        AtomicLong batches = new AtomicLong();
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        try (Session session = sessionFactory.withOptions()
+                .eventListeners(new BaseSessionEventListener() {
+                    @Override
+                    public void jdbcExecuteBatchStart() {
+                        batches.incrementAndGet();
+                    }
+                })
+                .openSession()) {
+            session.setJdbcBatchSize(batchSize);
+            Transaction transaction = session.beginTransaction();
+            for (int i = 0; i < count; i++) {
+                session.persist(User.builder().name("User " + i).email("user" + i + "@batch.ru").build());
+            }
+            session.flush();
+            transaction.rollback();
+        }
+        return batches.get();
+    }
 }